@@ -0,0 +1,150 @@
+package com.eawf.deriver;
+
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes a range of addresses of a {@link Deriver} to reactive
+ * subscribers. Every subscriber receives the whole range in index order.
+ * Addresses are derived on the executor only as the subscriber requests
+ * them, at most {@link #BATCH} per task, so a slow subscriber never causes
+ * anything to be buffered and cancelling stops derivation within one
+ * address.
+ *
+ * @author Carson Mullins
+ */
+public final class AddressPublisher implements Flow.Publisher<DerivedAddress> {
+
+    /**
+     * The most addresses derived by one executor task before it yields the
+     * thread to other work.
+     */
+    public static final int BATCH = 256;
+
+    private final Deriver deriver;
+    private final int start;
+    private final int count;
+    private final Executor executor;
+
+    /**
+     * Creates a publisher deriving on the common fork/join pool.
+     *
+     * @param deriver the prepared key to derive from.
+     * @param start the first address index.
+     * @param count the number of addresses.
+     */
+    public AddressPublisher(Deriver deriver, int start, int count) {
+        this(deriver, start, count, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a publisher deriving on the given executor.
+     *
+     * @param deriver the prepared key to derive from.
+     * @param start the first address index.
+     * @param count the number of addresses.
+     * @param executor the executor running the derivation and the
+     * subscribers' {@code onNext} calls.
+     */
+    public AddressPublisher(Deriver deriver, int start, int count, Executor executor) {
+        // Validates the range up front rather than on the first subscription
+        deriver.spliterator(start, count);
+        this.deriver = deriver;
+        this.start = start;
+        this.count = count;
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super DerivedAddress> subscriber) {
+        Objects.requireNonNull(subscriber);
+        subscriber.onSubscribe(new AddressSubscription(subscriber, deriver.spliterator(start, count)));
+    }
+
+    /**
+     * Emits the range to one subscriber. Signals are serialised by the
+     * {@code wip} counter: whichever call raises it from zero schedules the
+     * single drain task, and the task runs until it has seen every increment.
+     */
+    private final class AddressSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super DerivedAddress> subscriber;
+        private final Spliterator<DerivedAddress> addresses;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile boolean badRequest;
+
+        AddressSubscription(Flow.Subscriber<? super DerivedAddress> subscriber, Spliterator<DerivedAddress> addresses) {
+            this.subscriber = subscriber;
+            this.addresses = addresses;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                badRequest = true;
+            } else {
+                // Demand saturates at Long.MAX_VALUE, meaning unbounded
+                demand.getAndUpdate(d -> d + n < 0 ? Long.MAX_VALUE : d + n);
+            }
+            if (wip.getAndIncrement() == 0) {
+                executor.execute(this::drain);
+            }
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        private void drain() {
+            int missed = 1;
+            while (true) {
+                if (cancelled) {
+                    return;
+                }
+                if (badRequest) {
+                    cancelled = true;
+                    subscriber.onError(new IllegalArgumentException("request must be positive (rule 3.9)"));
+                    return;
+                }
+                long batch = Math.min(demand.get(), BATCH);
+                long sent = 0;
+                try {
+                    while (sent < batch && !cancelled && addresses.tryAdvance(subscriber::onNext)) {
+                        sent++;
+                    }
+                } catch (RuntimeException ex) {
+                    cancelled = true;
+                    subscriber.onError(ex);
+                    return;
+                }
+                if (sent > 0 && demand.get() != Long.MAX_VALUE) {
+                    demand.addAndGet(-sent);
+                }
+                if (addresses.estimateSize() == 0) {
+                    if (!cancelled) {
+                        cancelled = true;
+                        subscriber.onComplete();
+                    }
+                    return;
+                }
+                if (sent == BATCH && demand.get() > 0) {
+                    // Yield the thread; the task resumes with wip still held
+                    executor.execute(this::drain);
+                    return;
+                }
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+    }
+}
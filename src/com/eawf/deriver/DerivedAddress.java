@@ -0,0 +1,91 @@
+package com.eawf.deriver;
+
+import com.eawf.deriver.bitcoin.AddressType;
+import java.util.Arrays;
+
+/**
+ * An address derived by a {@link Deriver}, with the key material it was
+ * derived from. Instances are immutable.
+ *
+ * @author Carson Mullins
+ */
+public final class DerivedAddress {
+
+    private final int chain;
+    private final int index;
+    private final AddressType type;
+    private final byte[] pubKey;
+    private final byte[] pubKeyHash;
+    private final String address;
+
+    DerivedAddress(int chain, int index, AddressType type, byte[] pubKey, byte[] pubKeyHash) {
+        this.chain = chain;
+        this.index = index;
+        this.type = type;
+        this.pubKey = pubKey;
+        this.pubKeyHash = pubKeyHash;
+        this.address = type.encode(pubKey, pubKeyHash);
+    }
+
+    /**
+     * @return the chain index (0 for receive, 1 for change).
+     */
+    public int getChain() {
+        return chain;
+    }
+
+    /**
+     * @return the address index within the chain.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * @return the type of the address.
+     */
+    public AddressType getType() {
+        return type;
+    }
+
+    /**
+     * @return the 33-byte compressed public key.
+     */
+    public byte[] getPubKey() {
+        return pubKey.clone();
+    }
+
+    /**
+     * @return the HASH160 of the public key.
+     */
+    public byte[] getPubKeyHash() {
+        return pubKeyHash.clone();
+    }
+
+    /**
+     * @return the encoded address.
+     */
+    public String getAddress() {
+        return address;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof DerivedAddress)) {
+            return false;
+        }
+        DerivedAddress other = (DerivedAddress) obj;
+        return chain == other.chain && index == other.index && type == other.type
+                && Arrays.equals(pubKey, other.pubKey);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(pubKey) * 31 + type.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return address;
+    }
+}
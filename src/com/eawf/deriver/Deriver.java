@@ -0,0 +1,194 @@
+package com.eawf.deriver;
+
+import com.eawf.deriver.bitcoin.AddressType;
+import com.eawf.deriver.bitcoin.KeyNode;
+import com.eawf.deriver.util.ExtendedKeyFormatException;
+import com.eawf.deriver.util.Hash160;
+import com.eawf.deriver.util.Keys;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Derives the addresses of one chain of an account-level extended public or
+ * private key, for embedding the deriver in other programs. Ranges of
+ * addresses are available as a lazily evaluated {@link Spliterator} or
+ * {@link Stream}: nothing is derived until it is consumed, and the range
+ * splits evenly for parallel streams. Instances are immutable and may be
+ * shared between threads.
+ *
+ * <pre>{@code
+ * Deriver deriver = new Deriver(zpub, 0);
+ * deriver.stream(0, 1_000_000).parallel()
+ *         .filter(a -> watched.contains(a.getAddress()))
+ *         .forEach(System.out::println);
+ * }</pre>
+ *
+ * @author Carson Mullins
+ */
+public final class Deriver {
+
+    private final AddressType type;
+    private final int chain;
+    private final KeyNode node;
+
+    /**
+     * Prepares an account-level extended key for derivation. The address
+     * type follows from the key's version prefix.
+     *
+     * @param xkey_ser the serialized extended key ({@code xpub}, {@code ypub}
+     * or {@code zpub}, or the matching private key).
+     * @param chain the chain index to derive (0 for receive, 1 for change).
+     * @throws ExtendedKeyFormatException if the key is not a valid
+     * account-level extended key.
+     */
+    public Deriver(String xkey_ser, int chain) throws ExtendedKeyFormatException {
+        this(xkey_ser, chain, null);
+    }
+
+    /**
+     * Prepares an account-level extended key for derivation of a given
+     * address type, whatever the key's version prefix.
+     *
+     * @param xkey_ser the serialized extended key.
+     * @param chain the chain index to derive (0 for receive, 1 for change).
+     * @param type the address type to derive, or null for the type implied
+     * by the key's version prefix.
+     * @throws ExtendedKeyFormatException if the key is not a valid
+     * account-level extended key.
+     */
+    public Deriver(String xkey_ser, int chain, AddressType type) throws ExtendedKeyFormatException {
+        if (chain < 0) {
+            throw new IllegalArgumentException("Chain must be a non-hardened index.");
+        }
+        byte[] xkey_bytes = Keys.validateExtendedKey(xkey_ser);
+        byte[] version = Arrays.copyOfRange(xkey_bytes, 0, 4);
+        this.type = type != null ? type : AddressType.forVersion(version);
+        this.chain = chain;
+        this.node = Keys.toKeyNode(xkey_bytes).deriveChild(chain);
+    }
+
+    /**
+     * @return the type of the derived addresses.
+     */
+    public AddressType getType() {
+        return type;
+    }
+
+    /**
+     * @return the chain index the addresses are derived on.
+     */
+    public int getChain() {
+        return chain;
+    }
+
+    /**
+     * Derives a single address.
+     *
+     * @param index the address index, from 0 to 2,147,483,647.
+     * @return the derived address.
+     */
+    public DerivedAddress derive(int index) {
+        if (index < 0) {
+            throw new IllegalArgumentException("Index must be a non-hardened index.");
+        }
+        byte[] pubKey = node.derivePubKey(index);
+        byte[] pubKeyHash = new byte[Hash160.LEN];
+        new Hash160().hashPubKey(pubKey, 0, pubKeyHash, 0);
+        return new DerivedAddress(chain, index, type, pubKey, pubKeyHash);
+    }
+
+    /**
+     * Returns the addresses of a range of indexes, in index order, derived
+     * only as they are consumed.
+     *
+     * @param start the first address index.
+     * @param count the number of addresses.
+     * @return an ORDERED, SIZED and SUBSIZED spliterator over the range.
+     */
+    public Spliterator<DerivedAddress> spliterator(int start, int count) {
+        if (start < 0 || count < 0 || (long) start + count - 1 > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Index range must lie within 0 to 2,147,483,647.");
+        }
+        return new RangeSpliterator(start, (long) start + count);
+    }
+
+    /**
+     * Returns the addresses of a range of indexes as a sequential stream,
+     * which may be made parallel.
+     *
+     * @param start the first address index.
+     * @param count the number of addresses.
+     * @return a lazily evaluated stream over the range.
+     * @see #spliterator(int, int)
+     */
+    public Stream<DerivedAddress> stream(int start, int count) {
+        return StreamSupport.stream(spliterator(start, count), false);
+    }
+
+    /**
+     * The indexes from {@code next} up to {@code end}, exclusive. Splitting
+     * hands out the lower half, so both halves stay exactly sized.
+     */
+    private final class RangeSpliterator implements Spliterator<DerivedAddress> {
+
+        private long next;
+        private final long end;
+        private Hash160 hash160;
+
+        RangeSpliterator(long next, long end) {
+            this.next = next;
+            this.end = end;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super DerivedAddress> action) {
+            if (next >= end) {
+                return false;
+            }
+            action.accept(deriveNext());
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super DerivedAddress> action) {
+            while (next < end) {
+                action.accept(deriveNext());
+            }
+        }
+
+        private DerivedAddress deriveNext() {
+            if (hash160 == null) {
+                hash160 = new Hash160();
+            }
+            int index = (int) next++;
+            byte[] pubKey = node.derivePubKey(index);
+            byte[] pubKeyHash = new byte[Hash160.LEN];
+            hash160.hashPubKey(pubKey, 0, pubKeyHash, 0);
+            return new DerivedAddress(chain, index, type, pubKey, pubKeyHash);
+        }
+
+        @Override
+        public Spliterator<DerivedAddress> trySplit() {
+            long mid = (next + end) >>> 1;
+            if (mid <= next) {
+                return null;
+            }
+            Spliterator<DerivedAddress> prefix = new RangeSpliterator(next, mid);
+            next = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - next;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | DISTINCT | NONNULL | IMMUTABLE;
+        }
+    }
+}
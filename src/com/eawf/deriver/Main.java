@@ -1,7 +1,8 @@
 package com.eawf.deriver;
 
+import com.eawf.deriver.bitcoin.AddressType;
 import com.eawf.deriver.bitcoin.CKD;
-import com.eawf.deriver.util.Bytes;
+import com.eawf.deriver.job.JobRunner;
 import com.eawf.deriver.util.ExtendedKeyFormatException;
 import com.eawf.deriver.util.Hashes;
 import com.eawf.deriver.util.Keys;
@@ -18,28 +19,30 @@ public class Main {
     private static final Scanner scan = new Scanner(System.in);
 
     /**
-     * @param args the command line arguments, of which there should be none.
+     * @param args the command line arguments. With none, the interactive
+     * prompt is started; otherwise they are handed to {@link JobRunner}.
      */
     public static void main(String[] args) {
+        if (args.length > 0) {
+            System.exit(JobRunner.run(args));
+        }
         // Start the command line application, prompting for input until terminated.
         String input;
         while (true) {
             clearScreen();
-            // Ask user for the extended public key.
-            System.out.println("Enter the Account-Level Extended Public Key (Q to exit).");
+            // Ask user for the extended public or private key.
+            System.out.println("Enter the Account-Level Extended Public or Private Key (Q to exit).");
             input = scan.nextLine();
             if (input.equalsIgnoreCase("Q")) {
                 break;
             }
             try {
                 byte[] xkey_bytes = Keys.validateExtendedKey(input);
-                // Separate deserialize the extended key into version, chain code, and public key.
+                // Separate deserialize the extended key into version, chain code, and key.
                 byte[] version = Arrays.copyOfRange(xkey_bytes, 0, 4);
-                byte[] chainCodeParent = Arrays.copyOfRange(xkey_bytes, 13, 45);
-                byte[] publicKeyParent = Arrays.copyOfRange(xkey_bytes, xkey_bytes.length - 33, xkey_bytes.length);
                 // Concatenate the public key with the chain code to get the account-level extended key
-                // used for derivation.
-                byte[] xkeyAccount = Bytes.concat(publicKeyParent, chainCodeParent);
+                // used for derivation (a private key is reduced to its public key first).
+                byte[] xkeyAccount = Keys.toKeyNode(xkey_bytes).toPublic().toExtendedKey();
                 // Derive External Extended Public Key m/XX/0'/X'/0
                 byte[] xkeyExternal = CKD.CKDpub(xkeyAccount, 0);
                 // Repeatedly ask user for indexes until prompted to quit.
@@ -82,21 +85,9 @@ public class Main {
                     byte[] xkeyAddress = CKD.CKDpub(xkeyExternal, indexAddress);
                     byte[] publicKey = Arrays.copyOfRange(xkeyAddress, 0, 33);
                     byte[] pubKeyHash = Hashes.hash160(publicKey);
-                    String address;
-                    String addressType;
-                    if (Arrays.equals(version, Keys.XPUB)) {
-                        // If xpub, derive as P2PKH
-                        addressType = "P2PKH";
-                        address = Bytes.getAddressP2PKH(pubKeyHash);
-                    } else if (Arrays.equals(version, Keys.YPUB)) {
-                        // If ypub, derive as P2SH-P2WPKH
-                        addressType = "P2SH-P2WPKH";
-                        address = Bytes.getAddressP2SHP2WPKH(pubKeyHash);
-                    } else {
-                        // If zpub, derive as P2WPKH
-                        addressType = "P2WPKH";
-                        address = Bytes.getAddressP2WPKH(pubKeyHash);
-                    }
+                    // xpub derives as P2PKH, ypub as P2SH-P2WPKH and zpub as P2WPKH
+                    AddressType addressType = AddressType.forVersion(version);
+                    String address = addressType.encode(pubKeyHash);
                     System.out.println(addressType + " Address at index " + indexAddress + ":");
                     System.out.println(address + System.lineSeparator());
                     // Wait for user input before repeating.
@@ -0,0 +1,144 @@
+package com.eawf.deriver.bitcoin;
+
+import com.eawf.deriver.util.Bytes;
+import com.eawf.deriver.util.Keys;
+import java.util.Arrays;
+
+/**
+ * The address types that can be derived from an account-level extended key,
+ * each bound to the extended key version that implies it, if any.
+ *
+ * @author Carson Mullins
+ */
+public enum AddressType {
+
+    /**
+     * BIP44 pay-to-pubkey-hash, implied by an {@code xpub} or {@code xprv}.
+     */
+    P2PKH("P2PKH", Keys.XPUB, Keys.XPRV),
+    /**
+     * BIP49 pay-to-witness-pubkey-hash nested in pay-to-script-hash, implied
+     * by a {@code ypub} or {@code yprv}.
+     */
+    P2SH_P2WPKH("P2SH-P2WPKH", Keys.YPUB, Keys.YPRV),
+    /**
+     * BIP84 native pay-to-witness-pubkey-hash, implied by a {@code zpub} or
+     * {@code zprv}.
+     */
+    P2WPKH("P2WPKH", Keys.ZPUB, Keys.ZPRV),
+    /**
+     * BIP86 key-path-only pay-to-taproot. BIP86 accounts are serialized as
+     * plain {@code xpub}s, so no version implies this type; it must be asked
+     * for explicitly.
+     */
+    P2TR("P2TR", null, null);
+
+    private final String label;
+    private final byte[] version;
+    private final byte[] privateVersion;
+
+    private AddressType(String label, byte[] version, byte[] privateVersion) {
+        this.label = label;
+        this.version = version;
+        this.privateVersion = privateVersion;
+    }
+
+    /**
+     * Returns the address type implied by the given extended key version.
+     *
+     * @param version the 4 version bytes of an extended key.
+     * @return the address type for that version.
+     * @throws IllegalArgumentException if the version is not a known extended
+     * key version.
+     */
+    public static AddressType forVersion(byte[] version) {
+        for (AddressType type : values()) {
+            if (Arrays.equals(type.version, version) || Arrays.equals(type.privateVersion, version)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown extended key version");
+    }
+
+    /**
+     * Returns the address type with the given label, ignoring case.
+     *
+     * @param label a label such as {@code P2WPKH} or {@code p2tr}.
+     * @return the address type.
+     * @throws IllegalArgumentException if no address type has the label.
+     */
+    public static AddressType forLabel(String label) {
+        for (AddressType type : values()) {
+            if (type.label.equalsIgnoreCase(label)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown address type " + label);
+    }
+
+    /**
+     * @return true if addresses of this type carry a 20-byte hash of the
+     * public key, false for P2TR, which carries a tweaked key.
+     */
+    public boolean isHashed() {
+        return this != P2TR;
+    }
+
+    /**
+     * Encodes the given public key hash as an address of this type.
+     *
+     * @param pubKeyHash the HASH160 of a compressed public key.
+     * @return the encoded address.
+     * @throws IllegalStateException if this is P2TR, whose addresses are
+     * made from the public key itself; see {@link #encode(byte[], byte[])}.
+     */
+    public String encode(byte[] pubKeyHash) {
+        switch (this) {
+            case P2PKH:
+                return Bytes.getAddressP2PKH(pubKeyHash);
+            case P2SH_P2WPKH:
+                return Bytes.getAddressP2SHP2WPKH(pubKeyHash);
+            case P2WPKH:
+                return Bytes.getAddressP2WPKH(pubKeyHash);
+            default:
+                throw new IllegalStateException(label + " addresses encode a tweaked public key, not a key hash;"
+                        + " use encode(pubKey, pubKeyHash)");
+        }
+    }
+
+    /**
+     * Encodes a public key as an address of this type.
+     *
+     * @param pubKey a 33-byte compressed public key.
+     * @param pubKeyHash the HASH160 of the public key, used by every type but
+     * P2TR.
+     * @return the encoded address.
+     */
+    public String encode(byte[] pubKey, byte[] pubKeyHash) {
+        return this == P2TR ? Bytes.getAddressP2TR(pubKey) : encode(pubKeyHash);
+    }
+
+    /**
+     * Returns the 20-byte hash an address of this type encodes: the public
+     * key hash itself, or for P2SH-P2WPKH the hash of the witness program.
+     *
+     * @param pubKeyHash the HASH160 of a compressed public key.
+     * @return the hash carried by the address.
+     * @throws IllegalStateException if this is P2TR, whose addresses carry
+     * no hash; check {@link #isHashed()} first.
+     */
+    public byte[] addressHash(byte[] pubKeyHash) {
+        if (!isHashed()) {
+            throw new IllegalStateException(label + " addresses carry a tweaked public key, not a key hash");
+        }
+        if (this == P2SH_P2WPKH) {
+            return Bytes.getScriptHashP2SHP2WPKH(pubKeyHash);
+        }
+        return pubKeyHash;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -2,6 +2,7 @@ package com.eawf.deriver.bitcoin;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Objects;
 
 /**
@@ -12,7 +13,8 @@ public final class Bech32 {
     /*---- Static functions for segregated witness addresses ----*/
     /**
      * Encodes the specified segregated witness output into a Bech32 address
-     * string.
+     * string. As required by BIP-350, version 0 programs use the Bech32
+     * checksum and all later versions the Bech32m checksum.
      *
      * @param humanPart the prefix given to the resulting string, which should
      * be a mnemonic for the cryptocurrency name; must be not {@code null}, must
@@ -74,7 +76,61 @@ public final class Bech32 {
             bitBuffer <<= OUT_BITS;
             bitBufferLen -= OUT_BITS;
         }
-        return bitGroupsToBech32(humanPart, data.toByteArray());
+        return bitGroupsToBech32(humanPart, data.toByteArray(), witVer != 0);
+    }
+
+    /**
+     * Decodes the specified Bech32 address string into a segregated witness
+     * output. The result is a triple of the human-readable part, the witness
+     * version and the witness program. As required by BIP-350, version 0
+     * programs must use the Bech32 checksum and all later versions the
+     * Bech32m checksum.
+     *
+     * @param s the Bech32 address string to decode, which must be in lowercase
+     * @return a new array of length 3 containing a {@code String} (the
+     * human-readable part), an {@code Integer} (the witness version, in the
+     * range [0, 16]) and a {@code byte[]} (the witness program)
+     * @throws NullPointerException if the string is {@code null}
+     * @throws IllegalArgumentException if the string is not a valid Bech32
+     * segregated witness address
+     */
+    public static Object[] bech32ToSegwit(String s) {
+        Object[] decoded = bech32ToBitGroups(s);
+        byte[] data = (byte[]) decoded[1];
+
+        // Extract leading value
+        if (data.length < 1) {
+            throw new IllegalArgumentException("Missing witness version");
+        }
+        int witVer = data[0];
+        if (witVer < 0 || witVer > 16) {
+            throw new IllegalArgumentException("Invalid witness version");
+        }
+        if ((Boolean) decoded[2] != (witVer != 0)) {
+            throw new IllegalArgumentException("Checksum variant does not match witness version");
+        }
+
+        // Repack 5-bit groups into 8-bit bytes, dropping the padding
+        ByteArrayOutputStream witProg = new ByteArrayOutputStream();
+        int bitBuffer = 0;
+        int bitBufferLen = 0;  // Always in the range [0, 12]
+        for (int i = 1; i < data.length; i++) {
+            bitBuffer = (bitBuffer << 5) | data[i];
+            bitBufferLen += 5;
+            if (bitBufferLen >= 8) {
+                witProg.write(bitBuffer >>> (bitBufferLen - 8));
+                bitBufferLen -= 8;
+                bitBuffer &= (1 << bitBufferLen) - 1;
+            }
+        }
+        if (bitBufferLen >= 5 || bitBuffer != 0) {
+            throw new IllegalArgumentException("Invalid padding");
+        }
+        byte[] prog = witProg.toByteArray();
+        if (prog.length < 2 || prog.length > 40) {
+            throw new IllegalArgumentException("Invalid witness program length");
+        }
+        return new Object[]{decoded[0], witVer, prog};
     }
 
     /*---- Static functions for bit groups ----*/
@@ -96,6 +152,26 @@ public final class Bech32 {
      * preconditions, or {@code humanPart.length() + data.length > 83}
      */
     public static String bitGroupsToBech32(String humanPart, byte[] data) {
+        return bitGroupsToBech32(humanPart, data, false);
+    }
+
+    /**
+     * Encodes the specified human-readable part prefix plus the specified array
+     * of 5-bit data into a Bech32 or Bech32m string.
+     *
+     * @param humanPart the prefix given to the resulting string; see
+     * {@link #bitGroupsToBech32(String, byte[])}
+     * @param data a non-{@code null} sequence of zero or more values, where
+     * each value is a uint5
+     * @param bech32m true for the Bech32m checksum of BIP-350, false for the
+     * original Bech32 checksum
+     * @return the Bech32 or Bech32m string representing the specified two
+     * pieces of data
+     * @throws NullPointerException if the string or data is {@code null}
+     * @throws IllegalArgumentException if any argument violates the stated
+     * preconditions, or {@code humanPart.length() + data.length > 83}
+     */
+    public static String bitGroupsToBech32(String humanPart, byte[] data, boolean bech32m) {
         // Check arguments
         Objects.requireNonNull(humanPart);
         Objects.requireNonNull(data);
@@ -116,7 +192,7 @@ public final class Bech32 {
             ByteArrayOutputStream temp = expandHumanReadablePart(human);  // Every element is uint5
             temp.write(data);
             temp.write(new byte[CHECKSUM_LEN]);
-            checksum = polymod(temp.toByteArray()) ^ 1;
+            checksum = polymod(temp.toByteArray()) ^ (bech32m ? BECH32M_CONST : 1);
         } catch (IOException e) {
             throw new AssertionError(e);  // Impossible
         }
@@ -133,6 +209,66 @@ public final class Bech32 {
         return sb.toString();
     }
 
+    /**
+     * Decodes the specified Bech32 or Bech32m string into a human-readable
+     * part and an array of 5-bit data, verifying its checksum.
+     *
+     * @param s the Bech32 string to decode, which must be in lowercase
+     * @return a new array of length 3 containing a {@code String} (the
+     * human-readable part), a {@code byte[]} (the 5-bit data, without the
+     * checksum) and a {@code Boolean} (true if the checksum is Bech32m)
+     * @throws NullPointerException if the string is {@code null}
+     * @throws IllegalArgumentException if the string is too long, has no
+     * separator, has invalid characters or its checksum does not match
+     */
+    public static Object[] bech32ToBitGroups(String s) {
+        // Basic checks
+        Objects.requireNonNull(s);
+        if (s.length() > 90) {
+            throw new IllegalArgumentException("Input too long");
+        }
+
+        // Split human-readable part and data
+        int sep = s.lastIndexOf('1');
+        if (sep == -1) {
+            throw new IllegalArgumentException("No separator found");
+        }
+        String humanPart = s.substring(0, sep);
+        char[] human = humanPart.toCharArray();
+        checkHumanReadablePart(human);
+        s = s.substring(sep + 1);
+
+        // Decode from base-32
+        if (s.length() < CHECKSUM_LEN) {
+            throw new IllegalArgumentException("Data too short");
+        }
+        byte[] dataAndCheck = new byte[s.length()];  // Every element is uint5
+        for (int i = 0; i < s.length(); i++) {
+            int index = ALPHABET.indexOf(s.charAt(i));
+            if (index == -1) {
+                throw new IllegalArgumentException("Invalid data character");
+            }
+            dataAndCheck[i] = (byte) index;
+        }
+
+        // Verify checksum
+        int residue;
+        try {
+            ByteArrayOutputStream temp = expandHumanReadablePart(human);
+            temp.write(dataAndCheck);
+            residue = polymod(temp.toByteArray());
+        } catch (IOException e) {
+            throw new AssertionError(e);  // Impossible
+        }
+        if (residue != 1 && residue != BECH32M_CONST) {
+            throw new IllegalArgumentException("Checksum mismatch");
+        }
+
+        // Remove checksum, return decoded data
+        byte[] data = Arrays.copyOf(dataAndCheck, dataAndCheck.length - CHECKSUM_LEN);
+        return new Object[]{humanPart, data, residue == BECH32M_CONST};
+    }
+
     // Throws an exception if any of the following:
     // * Its length is outside the range [1, 83].
     // * It contains non-ASCII characters outside the range [33, 126].
@@ -190,6 +326,9 @@ public final class Bech32 {
     // For computing/verifying checksums. Each element is a uint30.
     private static final int[] GENERATOR = {0x3B6A57B2, 0x26508E6D, 0x1EA119FA, 0x3D4233DD, 0x2A1462B3};
 
+    // The value a Bech32m checksum (BIP-350) leaves in place of Bech32's 1.
+    private static final int BECH32M_CONST = 0x2BC830A3;
+
     // Number of uint5 groups. Do not modify.
     private static final int CHECKSUM_LEN = 6;
 
@@ -1,6 +1,7 @@
 package com.eawf.deriver.bitcoin;
 
 import com.eawf.deriver.ecc.CurveParams;
+import com.eawf.deriver.ecc.Scalar;
 import com.eawf.deriver.ecc.ScalarMultiply;
 import com.eawf.deriver.util.Bytes;
 import com.eawf.deriver.util.Hashes;
@@ -55,4 +56,47 @@ public class CKD {
         byte[] childPubKey = Bytes.concat(new byte[]{parity}, x_bytes);
         return Bytes.concat(childPubKey, I_R);
     }
+
+    /**
+     * Derives a child extended private key from a parent extended private
+     * key. An extended private key has 64 bytes, the left-hand 32-bytes is
+     * treated as the private key, and the right-hand 32-bytes is treated as
+     * the chain code. Indexes with the top bit set (2^31 and above, negative
+     * as an int) derive hardened children. Specifications defined in
+     * <a href="https://github.com/bitcoin/bips/blob/master/bip-0032.mediawiki">BIP-32</a>
+     *
+     * @param xkey_par the parent extended private key.
+     * @param i the child index to derive.
+     * @return the child extended private key derived at child index i.
+     * @throws IllegalArgumentException if BIP32 declares the child invalid,
+     * in which case the next index should be used.
+     */
+    public static byte[] CKDpriv(byte[] xkey_par, int i) {
+        byte[] chain_code = Arrays.copyOfRange(xkey_par, 32, 64);
+        byte[] prvPar = Arrays.copyOfRange(xkey_par, 0, 32);
+        byte[] i_bytes = ByteBuffer.allocate(4).putInt(i).array();
+        byte[] data;
+        if (i < 0) {
+            // Hardened child: 0x00 || ser256(k_par) || ser32(i)
+            data = Bytes.concat(Bytes.concat(new byte[]{0x00}, prvPar), i_bytes);
+        } else {
+            data = Bytes.concat(Keys.createPubKey(prvPar, CurveParams.G), i_bytes);
+        }
+        byte[] I = Hashes.hmac(chain_code, data);
+        // k_i = parse256(I_L) + k_par mod n, with no point arithmetic
+        int[] k = Scalar.create();
+        int[] k_par = Scalar.create();
+        if (!Scalar.fromBytes(k, I, 0)) {
+            throw new IllegalArgumentException("Invalid child: I_L is not below n");
+        }
+        Scalar.fromBytes(k_par, prvPar, 0);
+        Scalar.add(k, k, k_par);
+        if (Scalar.isZero(k)) {
+            throw new IllegalArgumentException("Invalid child: private key is zero");
+        }
+        byte[] xkey_child = new byte[64];
+        Scalar.toBytes(k, xkey_child, 0);
+        System.arraycopy(I, 32, xkey_child, 32, 32);
+        return xkey_child;
+    }
 }
@@ -0,0 +1,134 @@
+package com.eawf.deriver.bitcoin;
+
+import com.eawf.deriver.ecc.ConstantTimeMultiply;
+import com.eawf.deriver.ecc.ProjectivePoint;
+import com.eawf.deriver.util.Bytes;
+import com.eawf.deriver.util.HmacSha512;
+import java.util.Arrays;
+
+/**
+ * A parent extended public key prepared for deriving many children. The
+ * work {@link CKD#CKDpub(byte[], int)} repeats for every child index is done
+ * once here: the chain code is absorbed into HMAC-SHA512 midstates and the
+ * public key is decompressed into a curve point. Instances are immutable and
+ * may be shared between threads.
+ *
+ * @author Carson Mullins
+ */
+public final class ChainNode implements KeyNode {
+
+    private final byte[] pubKey;
+    private final byte[] chainCode;
+    private final HmacSha512 hmac;
+    private final ProjectivePoint point;
+
+    /**
+     * Prepares an extended public key in the 65-byte form used by
+     * {@link CKD#CKDpub(byte[], int)}: the 33-byte compressed public key
+     * followed by the 32-byte chain code.
+     *
+     * @param xkey the extended public key.
+     * @throws IllegalArgumentException if the public key is not a point on
+     * the curve.
+     */
+    public ChainNode(byte[] xkey) {
+        this.pubKey = Arrays.copyOfRange(xkey, 0, 33);
+        this.chainCode = Arrays.copyOfRange(xkey, 33, 65);
+        this.hmac = new HmacSha512(chainCode);
+        this.point = new ProjectivePoint();
+        if (!point.setCompressed(pubKey, 0)) {
+            throw new IllegalArgumentException("Public key is not a point on the curve");
+        }
+    }
+
+    /**
+     * @return the 33-byte compressed public key of this node.
+     */
+    @Override
+    public byte[] getPubKey() {
+        return pubKey.clone();
+    }
+
+    /**
+     * @return this node in the 65-byte extended public key form.
+     */
+    public byte[] toExtendedKey() {
+        return Bytes.concat(pubKey, chainCode);
+    }
+
+    /**
+     * Derives the public key of a non-hardened child.
+     *
+     * @param i the child index.
+     * @return the child's 33-byte compressed public key.
+     */
+    @Override
+    public byte[] derivePubKey(int i) {
+        byte[] I = computeI(i);
+        return childPoint(I).encodeCompressed();
+    }
+
+    /**
+     * Derives the public keys of consecutive non-hardened children.
+     *
+     * @param first the index of the first child.
+     * @param count the number of children.
+     * @param out the destination of the 33-byte compressed public keys,
+     * written back to back.
+     * @param off the offset to write the first key to.
+     */
+    @Override
+    public void derivePubKeys(int first, int count, byte[] out, int off) {
+        for (int j = 0; j < count; j++, off += 33) {
+            childPoint(computeI(first + j)).encodeCompressed(out, off);
+        }
+    }
+
+    /**
+     * Derives a non-hardened child as a node of its own, for walking further
+     * down the tree.
+     *
+     * @param i the child index.
+     * @return the prepared child node.
+     */
+    @Override
+    public ChainNode deriveChild(int i) {
+        byte[] I = computeI(i);
+        byte[] xkey = new byte[65];
+        childPoint(I).encodeCompressed(xkey, 0);
+        System.arraycopy(I, 32, xkey, 33, 32);
+        return new ChainNode(xkey);
+    }
+
+    /**
+     * @return this node, which is already public.
+     */
+    @Override
+    public ChainNode toPublic() {
+        return this;
+    }
+
+    /**
+     * I = HMAC-SHA512(chain code, serP(K_par) || ser32(i)), resuming from the
+     * prepared midstates.
+     */
+    private byte[] computeI(int i) {
+        byte[] data = new byte[37];
+        System.arraycopy(pubKey, 0, data, 0, 33);
+        data[33] = (byte) (i >>> 24);
+        data[34] = (byte) (i >>> 16);
+        data[35] = (byte) (i >>> 8);
+        data[36] = (byte) i;
+        return hmac.mac(data);
+    }
+
+    /**
+     * K_i = I_L * G + K_par.
+     */
+    private ProjectivePoint childPoint(byte[] I) {
+        // I_L is treated as a private key
+        ProjectivePoint child = ConstantTimeMultiply.multiplyG(Arrays.copyOfRange(I, 0, 32));
+        child.add(child, point);
+        return child;
+    }
+}
@@ -0,0 +1,48 @@
+package com.eawf.deriver.bitcoin;
+
+/**
+ * A node of a BIP32 key tree, prepared for deriving the public keys of many
+ * of its children.
+ *
+ * @author Carson Mullins
+ */
+public interface KeyNode {
+
+    /**
+     * @return the 33-byte compressed public key of this node.
+     */
+    byte[] getPubKey();
+
+    /**
+     * Derives the public key of a child.
+     *
+     * @param i the child index.
+     * @return the child's 33-byte compressed public key.
+     */
+    byte[] derivePubKey(int i);
+
+    /**
+     * Derives the public keys of consecutive children.
+     *
+     * @param first the index of the first child.
+     * @param count the number of children.
+     * @param out the destination of the 33-byte compressed public keys,
+     * written back to back.
+     * @param off the offset to write the first key to.
+     */
+    void derivePubKeys(int first, int count, byte[] out, int off);
+
+    /**
+     * Derives a child as a node of its own, for walking further down the
+     * tree.
+     *
+     * @param i the child index.
+     * @return the prepared child node.
+     */
+    KeyNode deriveChild(int i);
+
+    /**
+     * @return the extended public key of this node.
+     */
+    ChainNode toPublic();
+}
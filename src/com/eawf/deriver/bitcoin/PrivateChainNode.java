@@ -0,0 +1,166 @@
+package com.eawf.deriver.bitcoin;
+
+import com.eawf.deriver.ecc.ConstantTimeMultiply;
+import com.eawf.deriver.ecc.Scalar;
+import com.eawf.deriver.util.HmacSha512;
+import java.util.Arrays;
+
+/**
+ * A parent extended private key prepared for deriving many children. As in
+ * {@link ChainNode} the chain code is absorbed into HMAC-SHA512 midstates
+ * once; a child's private key is then the parent's plus I_L modulo n, with
+ * no point arithmetic at all. A public key is only computed, through the
+ * fixed-base table for G, when one is asked for. Instances are immutable and
+ * may be shared between threads.
+ *
+ * @author Carson Mullins
+ */
+public final class PrivateChainNode implements KeyNode {
+
+    private final int[] prvKey;
+    private final byte[] chainCode;
+    private final HmacSha512 hmac;
+    private volatile byte[] pubKey;
+
+    /**
+     * Prepares an extended private key in the 64-byte form used by
+     * {@link CKD#CKDpriv(byte[], int)}: the 32-byte private key followed by
+     * the 32-byte chain code.
+     *
+     * @param xkey the extended private key.
+     * @throws IllegalArgumentException if the private key is zero or not
+     * below n.
+     */
+    public PrivateChainNode(byte[] xkey) {
+        this.prvKey = Scalar.create();
+        if (!Scalar.fromBytes(prvKey, xkey, 0) || Scalar.isZero(prvKey)) {
+            throw new IllegalArgumentException("Private key is out of range");
+        }
+        this.chainCode = Arrays.copyOfRange(xkey, 32, 64);
+        this.hmac = new HmacSha512(chainCode);
+    }
+
+    private PrivateChainNode(int[] prvKey, byte[] chainCode) {
+        this.prvKey = prvKey;
+        this.chainCode = chainCode;
+        this.hmac = new HmacSha512(chainCode);
+    }
+
+    /**
+     * @return the 32-byte private key of this node.
+     */
+    public byte[] getPrvKey() {
+        byte[] k = new byte[32];
+        Scalar.toBytes(prvKey, k, 0);
+        return k;
+    }
+
+    @Override
+    public byte[] getPubKey() {
+        byte[] K = pubKey;
+        if (K == null) {
+            K = ConstantTimeMultiply.multiplyG(getPrvKey()).encodeCompressed();
+            pubKey = K;
+        }
+        return K.clone();
+    }
+
+    /**
+     * @return this node in the 64-byte extended private key form.
+     */
+    public byte[] toExtendedKey() {
+        byte[] xkey = new byte[64];
+        Scalar.toBytes(prvKey, xkey, 0);
+        System.arraycopy(chainCode, 0, xkey, 32, 32);
+        return xkey;
+    }
+
+    /**
+     * Drops the private key, keeping the public key and chain code.
+     *
+     * @return the matching extended public key.
+     */
+    @Override
+    public ChainNode toPublic() {
+        byte[] xkey = new byte[65];
+        System.arraycopy(getPubKey(), 0, xkey, 0, 33);
+        System.arraycopy(chainCode, 0, xkey, 33, 32);
+        return new ChainNode(xkey);
+    }
+
+    /**
+     * Derives the private key of a child.
+     *
+     * @param i the child index, hardened if its top bit is set.
+     * @return the child's 32-byte private key.
+     * @throws IllegalArgumentException in the vanishingly rare case that
+     * BIP32 declares the child invalid; the next index should be used.
+     */
+    public byte[] derivePrvKey(int i) {
+        byte[] k = new byte[32];
+        Scalar.toBytes(childKey(computeI(i)), k, 0);
+        return k;
+    }
+
+    @Override
+    public byte[] derivePubKey(int i) {
+        return ConstantTimeMultiply.multiplyG(derivePrvKey(i)).encodeCompressed();
+    }
+
+    @Override
+    public void derivePubKeys(int first, int count, byte[] out, int off) {
+        byte[] k = new byte[32];
+        for (int j = 0; j < count; j++, off += 33) {
+            Scalar.toBytes(childKey(computeI(first + j)), k, 0);
+            ConstantTimeMultiply.multiplyG(k).encodeCompressed(out, off);
+        }
+    }
+
+    /**
+     * Derives a child as a node of its own, for walking further down the
+     * tree.
+     *
+     * @param i the child index, hardened if its top bit is set.
+     * @return the prepared child node.
+     */
+    @Override
+    public PrivateChainNode deriveChild(int i) {
+        byte[] I = computeI(i);
+        return new PrivateChainNode(childKey(I), Arrays.copyOfRange(I, 32, 64));
+    }
+
+    /**
+     * I = HMAC-SHA512(chain code, 0x00 || ser256(k_par) || ser32(i)) for a
+     * hardened child, or HMAC-SHA512(chain code, serP(K_par) || ser32(i))
+     * otherwise, resuming from the prepared midstates.
+     */
+    private byte[] computeI(int i) {
+        byte[] data = new byte[37];
+        if (i < 0) {
+            Scalar.toBytes(prvKey, data, 1);
+        } else {
+            byte[] K = pubKey;
+            System.arraycopy(K != null ? K : getPubKey(), 0, data, 0, 33);
+        }
+        data[33] = (byte) (i >>> 24);
+        data[34] = (byte) (i >>> 16);
+        data[35] = (byte) (i >>> 8);
+        data[36] = (byte) i;
+        return hmac.mac(data);
+    }
+
+    /**
+     * k_i = parse256(I_L) + k_par mod n.
+     */
+    private int[] childKey(byte[] I) {
+        int[] k = Scalar.create();
+        if (!Scalar.fromBytes(k, I, 0)) {
+            throw new IllegalArgumentException("Invalid child: I_L is not below n");
+        }
+        Scalar.add(k, k, prvKey);
+        if (Scalar.isZero(k)) {
+            throw new IllegalArgumentException("Invalid child: private key is zero");
+        }
+        return k;
+    }
+}
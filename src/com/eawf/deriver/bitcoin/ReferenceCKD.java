@@ -0,0 +1,206 @@
+package com.eawf.deriver.bitcoin;
+
+import com.eawf.deriver.ecc.CurveParams;
+import com.eawf.deriver.ecc.ScalarMultiply;
+import com.eawf.deriver.util.Bytes;
+import com.eawf.deriver.util.Hashes;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.spec.ECPoint;
+import java.util.Arrays;
+
+/**
+ * The original, straightforward implementation of BIP-32 public derivation
+ * and address hashing, kept as a reference for checking the fast engines.
+ * It uses only {@link BigInteger} arithmetic through {@link ScalarMultiply},
+ * the JDK's HMAC-SHA512 and SHA-256, and a RIPEMD-160 of its own written
+ * directly from the specification, and shares no code with
+ * {@code ecc.Field}, {@code ProjectivePoint}, {@code ConstantTimeMultiply},
+ * {@code HmacSha512}, {@code Hash160} or {@code Hashes.Ripemd160}. It is far
+ * too slow for bulk derivation.
+ *
+ * @author Carson Mullins
+ */
+public final class ReferenceCKD {
+
+    private ReferenceCKD() {
+    } // Non-instantiable
+
+    private static final BigInteger SQRT_EXPONENT = CurveParams.p.add(BigInteger.ONE).shiftRight(2);
+
+    // RIPEMD-160 message word order and rotations, left and right lines
+    private static final int[] R = {
+        0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15,
+        7, 4, 13, 1, 10, 6, 15, 3, 12, 0, 9, 5, 2, 14, 11, 8,
+        3, 10, 14, 4, 9, 15, 8, 1, 2, 7, 0, 6, 13, 11, 5, 12,
+        1, 9, 11, 10, 0, 8, 12, 4, 13, 3, 7, 15, 14, 5, 6, 2,
+        4, 0, 5, 9, 7, 12, 2, 10, 14, 1, 3, 8, 11, 6, 15, 13};
+    private static final int[] R_PRIME = {
+        5, 14, 7, 0, 9, 2, 11, 4, 13, 6, 15, 8, 1, 10, 3, 12,
+        6, 11, 3, 7, 0, 13, 5, 10, 14, 15, 8, 12, 4, 9, 1, 2,
+        15, 5, 1, 3, 7, 14, 6, 9, 11, 8, 12, 2, 10, 0, 4, 13,
+        8, 6, 4, 1, 3, 11, 15, 0, 5, 12, 2, 13, 9, 7, 10, 14,
+        12, 15, 10, 4, 1, 5, 8, 7, 6, 2, 13, 14, 0, 3, 9, 11};
+    private static final int[] S = {
+        11, 14, 15, 12, 5, 8, 7, 9, 11, 13, 14, 15, 6, 7, 9, 8,
+        7, 6, 8, 13, 11, 9, 7, 15, 7, 12, 15, 9, 11, 7, 13, 12,
+        11, 13, 6, 7, 14, 9, 13, 15, 14, 8, 13, 6, 5, 12, 7, 5,
+        11, 12, 14, 15, 14, 15, 9, 8, 9, 14, 5, 6, 8, 6, 5, 12,
+        9, 15, 5, 11, 6, 8, 13, 12, 5, 12, 13, 14, 11, 8, 5, 6};
+    private static final int[] S_PRIME = {
+        8, 9, 9, 11, 13, 15, 15, 5, 7, 7, 8, 11, 14, 14, 12, 6,
+        9, 13, 15, 7, 12, 8, 9, 11, 7, 7, 12, 7, 6, 15, 13, 11,
+        9, 7, 15, 11, 8, 6, 6, 14, 12, 13, 5, 14, 13, 13, 7, 5,
+        15, 5, 8, 11, 14, 14, 6, 14, 6, 9, 12, 9, 12, 5, 15, 8,
+        8, 5, 12, 9, 12, 5, 14, 6, 8, 13, 6, 5, 15, 13, 11, 11};
+    private static final int[] K = {0x00000000, 0x5A827999, 0x6ED9EBA1, 0x8F1BBCDC, 0xA953FD4E};
+    private static final int[] K_PRIME = {0x50A28BE6, 0x5C4DD124, 0x6D703EF3, 0x7A6D76E9, 0x00000000};
+
+    /**
+     * Derives a child extended public key from a parent extended public key,
+     * in the 65-byte form used by {@link CKD#CKDpub(byte[], int)}.
+     *
+     * @param xkey_par the parent extended public key.
+     * @param i the child index to derive.
+     * @return the child extended public key derived at child index i.
+     */
+    public static byte[] CKDpub(byte[] xkey_par, int i) {
+        byte[] chain_code = Arrays.copyOfRange(xkey_par, 33, xkey_par.length);
+        byte[] pubPar = Arrays.copyOfRange(xkey_par, 0, 33);
+        byte[] data = Bytes.concat(pubPar, ByteBuffer.allocate(4).putInt(i).array());
+        byte[] I = Hashes.hmac(chain_code, data);
+        BigInteger I_L = new BigInteger(1, Arrays.copyOfRange(I, 0, 32));
+        ECPoint childPoint = ScalarMultiply.addPoint(ScalarMultiply.scalmult(CurveParams.G, I_L), decompress(pubPar));
+        return Bytes.concat(compress(childPoint), Arrays.copyOfRange(I, 32, 64));
+    }
+
+    /**
+     * @param data the data to hash.
+     * @return the RIPEMD-160 hash of the SHA-256 hash of the data.
+     */
+    public static byte[] hash160(byte[] data) {
+        return ripemd160(Hashes.sha256(data));
+    }
+
+    /**
+     * RIPEMD-160 as the specification states it: pad, then for every block
+     * run the left and right lines of 80 steps each, selecting the boolean
+     * function, message word, rotation and constant by step number.
+     */
+    static byte[] ripemd160(byte[] data) {
+        int blocks = (data.length + 8) / 64 + 1;
+        ByteBuffer padded = ByteBuffer.allocate(blocks * 64).order(ByteOrder.LITTLE_ENDIAN);
+        padded.put(data).put((byte) 0x80);
+        padded.putLong(blocks * 64 - 8, (long) data.length * 8);
+        int[] h = {0x67452301, 0xEFCDAB89, 0x98BADCFE, 0x10325476, 0xC3D2E1F0};
+        int[] x = new int[16];
+        for (int block = 0; block < blocks; block++) {
+            for (int i = 0; i < 16; i++) {
+                x[i] = padded.getInt(block * 64 + i * 4);
+            }
+            int al = h[0], bl = h[1], cl = h[2], dl = h[3], el = h[4];
+            int ar = h[0], br = h[1], cr = h[2], dr = h[3], er = h[4];
+            for (int j = 0; j < 80; j++) {
+                int round = j / 16;
+                int t = Integer.rotateLeft(al + f(j, bl, cl, dl) + x[R[j]] + K[round], S[j]) + el;
+                al = el;
+                el = dl;
+                dl = Integer.rotateLeft(cl, 10);
+                cl = bl;
+                bl = t;
+                t = Integer.rotateLeft(ar + f(79 - j, br, cr, dr) + x[R_PRIME[j]] + K_PRIME[round], S_PRIME[j]) + er;
+                ar = er;
+                er = dr;
+                dr = Integer.rotateLeft(cr, 10);
+                cr = br;
+                br = t;
+            }
+            int t = h[1] + cl + dr;
+            h[1] = h[2] + dl + er;
+            h[2] = h[3] + el + ar;
+            h[3] = h[4] + al + br;
+            h[4] = h[0] + bl + cr;
+            h[0] = t;
+        }
+        ByteBuffer out = ByteBuffer.allocate(20).order(ByteOrder.LITTLE_ENDIAN);
+        for (int word : h) {
+            out.putInt(word);
+        }
+        return out.array();
+    }
+
+    private static int f(int j, int x, int y, int z) {
+        switch (j / 16) {
+            case 0:
+                return x ^ y ^ z;
+            case 1:
+                return (x & y) | (~x & z);
+            case 2:
+                return (x | ~y) ^ z;
+            case 3:
+                return (x & z) | (y & ~z);
+            default:
+                return x ^ (y | ~z);
+        }
+    }
+
+    /**
+     * Encodes a public key as an address of the given type.
+     *
+     * @param type the address type.
+     * @param pubKey a 33-byte compressed public key.
+     * @param pubKeyHash the HASH160 of the public key.
+     * @return the encoded address.
+     */
+    public static String encode(AddressType type, byte[] pubKey, byte[] pubKeyHash) {
+        switch (type) {
+            case P2PKH:
+                return Bytes.getAddressP2PKH(pubKeyHash);
+            case P2SH_P2WPKH:
+                byte[] scriptHash = hash160(Bytes.concat(new byte[]{0x00, 0x14}, pubKeyHash));
+                return Base58Check.bytesToBase58(Bytes.concat(new byte[]{0x05}, scriptHash));
+            case P2WPKH:
+                return Bytes.getAddressP2WPKH(pubKeyHash);
+            default:
+                return Bech32.segwitToBech32("bc", 1, taprootOutputKey(pubKey));
+        }
+    }
+
+    /**
+     * BIP86 output key: the x coordinate of P + t * G, where P has the key's
+     * x coordinate and even y, and t is the TapTweak tagged hash of x(P),
+     * computed in full without a cached prefix.
+     */
+    private static byte[] taprootOutputKey(byte[] pubKey) {
+        byte[] x = Arrays.copyOfRange(pubKey, 1, 33);
+        byte[] tagHash = Hashes.sha256("TapTweak".getBytes(StandardCharsets.UTF_8));
+        byte[] t = Hashes.sha256(Bytes.concat(Bytes.concat(tagHash, tagHash), x));
+        ECPoint P = decompress(Bytes.concat(new byte[]{0x02}, x));
+        ECPoint Q = ScalarMultiply.addPoint(ScalarMultiply.scalmult(CurveParams.G, new BigInteger(1, t)), P);
+        return Arrays.copyOfRange(compress(Q), 1, 33);
+    }
+
+    /**
+     * Recovers y from x as the square root of x^3 + 7, choosing the root whose
+     * parity the prefix byte names.
+     */
+    private static ECPoint decompress(byte[] pubKey) {
+        BigInteger x = new BigInteger(1, Arrays.copyOfRange(pubKey, 1, 33));
+        BigInteger y = x.pow(3).add(CurveParams.b).mod(CurveParams.p).modPow(SQRT_EXPONENT, CurveParams.p);
+        if (y.testBit(0) != (pubKey[0] == 0x03)) {
+            y = CurveParams.p.subtract(y);
+        }
+        return new ECPoint(x, y);
+    }
+
+    private static byte[] compress(ECPoint point) {
+        byte[] x_bytes = new byte[32];
+        byte[] x_raw = point.getAffineX().toByteArray();
+        int len = Math.min(x_raw.length, 32);
+        System.arraycopy(x_raw, x_raw.length - len, x_bytes, 32 - len, len);
+        byte parity = (byte) (point.getAffineY().testBit(0) ? 0x03 : 0x02);
+        return Bytes.concat(new byte[]{parity}, x_bytes);
+    }
+}
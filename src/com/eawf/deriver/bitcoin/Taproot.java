@@ -0,0 +1,67 @@
+package com.eawf.deriver.bitcoin;
+
+import com.eawf.deriver.ecc.ConstantTimeMultiply;
+import com.eawf.deriver.ecc.ProjectivePoint;
+import com.eawf.deriver.ecc.Scalar;
+import com.eawf.deriver.util.TaggedHash;
+
+/**
+ * Key-path-only taproot outputs as specified by
+ * <a href="https://github.com/bitcoin/bips/blob/master/bip-0086.mediawiki">BIP-86</a>:
+ * the internal key is the x-only form of a derived public key, and the
+ * output key commits to it with a TapTweak over an empty script tree.
+ *
+ * @author Carson Mullins
+ */
+public final class Taproot {
+
+    private Taproot() {
+    } // Non-instantiable
+
+    /**
+     * The length of an x-only key.
+     */
+    public static final int KEY_LEN = 32;
+
+    private static final TaggedHash TAP_TWEAK = new TaggedHash("TapTweak");
+
+    /**
+     * Computes Q = P + int(hash_TapTweak(x(P))) * G, where P is the point
+     * with the public key's x coordinate and an even y coordinate.
+     *
+     * @param pubKey the array holding a 33-byte compressed public key.
+     * @param off the offset of the key within pubKey.
+     * @param out the destination array.
+     * @param outOff the offset within out to write the 32-byte x-only output
+     * key to.
+     * @throws IllegalArgumentException if the key is not a point on the curve,
+     * or in the vanishingly rare case that the tweak is not below n.
+     */
+    public static void outputKey(byte[] pubKey, int off, byte[] out, int outOff) {
+        byte[] even = new byte[33];
+        even[0] = 0x02;
+        System.arraycopy(pubKey, off + 1, even, 1, KEY_LEN);
+        ProjectivePoint P = new ProjectivePoint();
+        if (!P.setCompressed(even, 0)) {
+            throw new IllegalArgumentException("Public key is not a point on the curve");
+        }
+        byte[] t = TAP_TWEAK.hash(even, 1, KEY_LEN);
+        if (!Scalar.fromBytes(Scalar.create(), t, 0)) {
+            throw new IllegalArgumentException("Taproot tweak is not below n");
+        }
+        ProjectivePoint Q = ConstantTimeMultiply.multiplyG(t);
+        Q.add(Q, P);
+        Q.encodeCompressed(even, 0);
+        System.arraycopy(even, 1, out, outOff, KEY_LEN);
+    }
+
+    /**
+     * @param pubKey a 33-byte compressed public key.
+     * @return the 32-byte x-only output key of the key's BIP86 output.
+     */
+    public static byte[] outputKey(byte[] pubKey) {
+        byte[] Q = new byte[KEY_LEN];
+        outputKey(pubKey, 0, Q, 0);
+        return Q;
+    }
+}
@@ -0,0 +1,189 @@
+package com.eawf.deriver.ecc;
+
+import java.math.BigInteger;
+import java.security.spec.ECPoint;
+
+/**
+ * Scalar multiplication whose running time and memory access pattern do not
+ * depend on the scalar, for use with private keys. Unlike
+ * {@link ScalarMultiply#scalmult(java.security.spec.ECPoint, BigInteger)},
+ * neither the bits of the scalar nor the intermediate points ever select a
+ * branch: scalars are consumed in fixed 4-bit windows, table entries are read
+ * by scanning the whole table with masked copies, and points are combined
+ * with the complete formulas of {@link ProjectivePoint}.
+ *
+ * @author Carson Mullins
+ */
+public final class ConstantTimeMultiply {
+
+    private ConstantTimeMultiply() {
+    } // Non-instantiable
+
+    private static final int WINDOW_BITS = 4;
+    private static final int TABLE_SIZE = 1 << WINDOW_BITS;
+    private static final int WINDOWS = 256 / WINDOW_BITS;
+
+    /**
+     * The number of base points other than G whose comb tables are kept.
+     */
+    public static final int CACHED_POINTS = 8;
+
+    // 96 KiB of packed coordinates per table, 768 KiB for the whole cache;
+    // a point must be used twice before it gets one
+    private static final PointTableCache<int[][]> COMBS
+            = new PointTableCache<>(CACHED_POINTS, 2, p -> comb(new ProjectivePoint(p), false));
+
+    /**
+     * Computes k * P with a fixed 4-bit window: 252 doublings and 64
+     * additions for every scalar.
+     *
+     * @param p the point to multiply.
+     * @param k the scalar as a 32-byte big-endian integer.
+     * @return the point k * P.
+     */
+    public static ProjectivePoint multiply(ProjectivePoint p, byte[] k) {
+        ProjectivePoint[] table = new ProjectivePoint[TABLE_SIZE];
+        table[0] = new ProjectivePoint();
+        for (int j = 1; j < TABLE_SIZE; j++) {
+            table[j] = new ProjectivePoint();
+            table[j].add(table[j - 1], p);
+        }
+        ProjectivePoint r = new ProjectivePoint();
+        ProjectivePoint entry = new ProjectivePoint();
+        for (int i = WINDOWS - 1; i >= 0; i--) {
+            for (int d = 0; d < WINDOW_BITS; d++) {
+                r.twice(r);
+            }
+            lookup(entry, table, nibble(k, i));
+            r.add(r, entry);
+        }
+        return r;
+    }
+
+    /**
+     * Computes k * P, remembering P. From the second multiplication of the
+     * same point on, and for as long as it stays among the
+     * {@value #CACHED_POINTS} most recently used points, P gets a comb table
+     * like the generator's and the product costs 64 additions and no
+     * doublings, a quarter of {@link #multiply(ProjectivePoint, byte[])}.
+     *
+     * @param p the point to multiply, which is public.
+     * @param k the scalar as a 32-byte big-endian integer.
+     * @return the point k * P.
+     */
+    public static ProjectivePoint multiply(ECPoint p, byte[] k) {
+        int[][] table = COMBS.get(p);
+        if (table == null) {
+            return multiply(new ProjectivePoint(p), k);
+        }
+        return multiplyComb(table, k);
+    }
+
+    /**
+     * Computes k * G from a precomputed table of j * 16^i * G for every
+     * window position i and digit j, so that the product needs no doublings
+     * at all: 64 table scans and 64 additions for every scalar.
+     *
+     * @param k the scalar as a 32-byte big-endian integer.
+     * @return the point k * G.
+     */
+    public static ProjectivePoint multiplyG(byte[] k) {
+        return multiplyComb(GTable.TABLE, k);
+    }
+
+    private static ProjectivePoint multiplyComb(int[][] table, byte[] k) {
+        ProjectivePoint r = new ProjectivePoint();
+        ProjectivePoint entry = new ProjectivePoint();
+        for (int i = 0; i < WINDOWS; i++) {
+            lookupPacked(entry, table[i], nibble(k, i));
+            r.add(r, entry);
+        }
+        return r;
+    }
+
+    /**
+     * Converts a private key of any length into the 32-byte big-endian form
+     * the multiplications take, reducing it modulo n only if it is longer.
+     *
+     * @param prvKey the private key bytes, big-endian and unsigned.
+     * @return the 32-byte scalar.
+     */
+    public static byte[] toScalar(byte[] prvKey) {
+        if (prvKey.length == 32) {
+            return prvKey;
+        }
+        byte[] k = new byte[32];
+        if (prvKey.length < 32) {
+            System.arraycopy(prvKey, 0, k, 32 - prvKey.length, prvKey.length);
+            return k;
+        }
+        byte[] raw = new BigInteger(1, prvKey).mod(CurveParams.n).toByteArray();
+        int len = Math.min(raw.length, 32);
+        System.arraycopy(raw, raw.length - len, k, 32 - len, len);
+        return k;
+    }
+
+    /**
+     * Returns the i-th 4-bit digit of k, counting from the least significant.
+     * The position is public; only the digit's value is secret.
+     */
+    private static int nibble(byte[] k, int i) {
+        return (k[31 - (i >>> 1)] >>> ((i & 1) * WINDOW_BITS)) & (TABLE_SIZE - 1);
+    }
+
+    /**
+     * Copies table[index] into r by visiting every entry.
+     */
+    private static void lookup(ProjectivePoint r, ProjectivePoint[] table, int index) {
+        r.setInfinity();
+        for (int j = 0; j < table.length; j++) {
+            r.cmov(table[j], ((j ^ index) - 1) >> 31);
+        }
+    }
+
+    /**
+     * Copies entry index of a packed table row into r by visiting every
+     * entry.
+     */
+    private static void lookupPacked(ProjectivePoint r, int[] row, int index) {
+        r.setInfinity();
+        for (int j = 0; j < TABLE_SIZE; j++) {
+            r.cmov(row, j * ProjectivePoint.PACKED_LEN, ((j ^ index) - 1) >> 31);
+        }
+    }
+
+    /**
+     * Builds the comb table j * 16^i * P for every window position i and
+     * digit j, each row holding its 16 points packed by
+     * {@link ProjectivePoint#store(int[], int)}. Normalizing every entry to
+     * Z = 1 costs an inversion each, which only pays off for the generator's
+     * permanent table.
+     */
+    private static int[][] comb(ProjectivePoint base, boolean normalize) {
+        int[][] table = new int[WINDOWS][TABLE_SIZE * ProjectivePoint.PACKED_LEN];
+        ProjectivePoint entry = new ProjectivePoint();
+        for (int i = 0; i < WINDOWS; i++) {
+            entry.setInfinity();
+            entry.store(table[i], 0);
+            for (int j = 1; j < TABLE_SIZE; j++) {
+                entry.add(entry, base);
+                if (normalize) {
+                    entry.normalize();
+                }
+                entry.store(table[i], j * ProjectivePoint.PACKED_LEN);
+            }
+            for (int d = 0; d < WINDOW_BITS; d++) {
+                base.twice(base);
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Lazily built comb table for the generator, normalized to Z = 1.
+     */
+    private static final class GTable {
+
+        static final int[][] TABLE = comb(new ProjectivePoint(CurveParams.G), true);
+    }
+}
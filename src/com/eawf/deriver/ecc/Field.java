@@ -0,0 +1,716 @@
+package com.eawf.deriver.ecc;
+
+import java.math.BigInteger;
+
+/**
+ * Arithmetic in the SECP-256K1 base field, GF(p) with
+ * p = 2^256 - 2^32 - 977. Elements are {@code int[8]} arrays of unsigned
+ * 32-bit limbs, least significant first, always fully reduced into [0, p).
+ * Operations write their result into the first argument, which may be the
+ * same array as any input, and never branch on or index memory by the values
+ * of their operands, so they are safe to use on secret data.
+ *
+ * @author Carson Mullins
+ */
+public final class Field {
+
+    private Field() {
+    } // Non-instantiable
+
+    /**
+     * The number of limbs in a field element.
+     */
+    public static final int LIMBS = 8;
+
+    private static final long M = 0xFFFFFFFFL;
+    // 2^256 - p, the value 2^256 folds to when reducing
+    private static final long K_LO = 977;
+    private static final int[] P = {
+        0xFFFFFC2F, 0xFFFFFFFE, 0xFFFFFFFF, 0xFFFFFFFF,
+        0xFFFFFFFF, 0xFFFFFFFF, 0xFFFFFFFF, 0xFFFFFFFF};
+
+    /**
+     * @return a new field element equal to zero.
+     */
+    public static int[] create() {
+        return new int[LIMBS];
+    }
+
+    /**
+     * Sets r to a small non-negative integer.
+     *
+     * @param r the destination.
+     * @param v the value.
+     */
+    public static void set(int[] r, int v) {
+        r[0] = v;
+        for (int i = 1; i < LIMBS; i++) {
+            r[i] = 0;
+        }
+    }
+
+    /**
+     * Copies a into r.
+     *
+     * @param r the destination.
+     * @param a the source.
+     */
+    public static void set(int[] r, int[] a) {
+        System.arraycopy(a, 0, r, 0, LIMBS);
+    }
+
+    /**
+     * Reads a 32-byte big-endian integer, reducing it modulo p.
+     *
+     * @param r the destination.
+     * @param b the array holding the integer.
+     * @param off the offset of the integer within b.
+     */
+    public static void fromBytes(int[] r, byte[] b, int off) {
+        for (int i = 0; i < LIMBS; i++) {
+            int p = off + 28 - 4 * i;
+            r[i] = (b[p] & 0xFF) << 24 | (b[p + 1] & 0xFF) << 16 | (b[p + 2] & 0xFF) << 8 | (b[p + 3] & 0xFF);
+        }
+        reduceOnce(r, 0);
+    }
+
+    /**
+     * Writes a as a 32-byte big-endian integer.
+     *
+     * @param a the field element.
+     * @param b the destination array.
+     * @param off the offset within b to write the 32 bytes to.
+     */
+    public static void toBytes(int[] a, byte[] b, int off) {
+        for (int i = 0; i < LIMBS; i++) {
+            int p = off + 28 - 4 * i;
+            b[p] = (byte) (a[i] >>> 24);
+            b[p + 1] = (byte) (a[i] >>> 16);
+            b[p + 2] = (byte) (a[i] >>> 8);
+            b[p + 3] = (byte) a[i];
+        }
+    }
+
+    /**
+     * Converts a non-negative BigInteger, reducing it modulo p.
+     *
+     * @param r the destination.
+     * @param v the value.
+     */
+    public static void fromBigInteger(int[] r, BigInteger v) {
+        byte[] raw = v.mod(CurveParams.p).toByteArray();
+        byte[] b = new byte[32];
+        int len = Math.min(raw.length, 32);
+        System.arraycopy(raw, raw.length - len, b, 32 - len, len);
+        fromBytes(r, b, 0);
+    }
+
+    /**
+     * @param a the field element.
+     * @return a as a BigInteger.
+     */
+    public static BigInteger toBigInteger(int[] a) {
+        byte[] b = new byte[32];
+        toBytes(a, b, 0);
+        return new BigInteger(1, b);
+    }
+
+    /**
+     * @param a the field element.
+     * @return true if a is zero.
+     */
+    public static boolean isZero(int[] a) {
+        int z = 0;
+        for (int i = 0; i < LIMBS; i++) {
+            z |= a[i];
+        }
+        return z == 0;
+    }
+
+    /**
+     * @param a the field element.
+     * @return true if a, as an integer in [0, p), is odd.
+     */
+    public static boolean isOdd(int[] a) {
+        return (a[0] & 1) != 0;
+    }
+
+    /**
+     * @param a the first field element.
+     * @param b the second field element.
+     * @return true if a equals b.
+     */
+    public static boolean equals(int[] a, int[] b) {
+        int d = 0;
+        for (int i = 0; i < LIMBS; i++) {
+            d |= a[i] ^ b[i];
+        }
+        return d == 0;
+    }
+
+    /**
+     * Copies a into r if flag is -1, leaves r unchanged if flag is 0,
+     * without branching on flag.
+     *
+     * @param r the destination.
+     * @param a the source.
+     * @param flag either 0 or -1.
+     */
+    public static void cmov(int[] r, int[] a, int flag) {
+        for (int i = 0; i < LIMBS; i++) {
+            r[i] ^= (r[i] ^ a[i]) & flag;
+        }
+    }
+
+    /**
+     * r = a + b mod p.
+     *
+     * @param r the destination.
+     * @param a the first addend.
+     * @param b the second addend.
+     */
+    public static void add(int[] r, int[] a, int[] b) {
+        long c = 0;
+        for (int i = 0; i < LIMBS; i++) {
+            c += (a[i] & M) + (b[i] & M);
+            r[i] = (int) c;
+            c >>>= 32;
+        }
+        reduceOnce(r, (int) c);
+    }
+
+    /**
+     * r = a - b mod p.
+     *
+     * @param r the destination.
+     * @param a the minuend.
+     * @param b the subtrahend.
+     */
+    public static void sub(int[] r, int[] a, int[] b) {
+        long c = 0;
+        for (int i = 0; i < LIMBS; i++) {
+            c += (a[i] & M) - (b[i] & M);
+            r[i] = (int) c;
+            c >>= 32;
+        }
+        // On borrow the result wrapped by 2^256; subtracting 2^256 - p turns that into + p
+        long k = (int) c & (K_LO | 1L << 32);
+        c = 0;
+        for (int i = 0; i < LIMBS; i++) {
+            c += (r[i] & M) - (i == 0 ? k & M : i == 1 ? k >>> 32 : 0);
+            r[i] = (int) c;
+            c >>= 32;
+        }
+    }
+
+    /**
+     * r = -a mod p.
+     *
+     * @param r the destination.
+     * @param a the field element.
+     */
+    public static void negate(int[] r, int[] a) {
+        long c = 0;
+        for (int i = 0; i < LIMBS; i++) {
+            c += (P[i] & M) - (a[i] & M);
+            r[i] = (int) c;
+            c >>= 32;
+        }
+        // p - 0 = p must still be reduced to 0
+        reduceOnce(r, 0);
+    }
+
+    /**
+     * r = a * b mod p.
+     *
+     * @param r the destination.
+     * @param a the first factor.
+     * @param b the second factor.
+     */
+    public static void mul(int[] r, int[] a, int[] b) {
+        long a0 = a[0] & M, a1 = a[1] & M, a2 = a[2] & M, a3 = a[3] & M;
+        long a4 = a[4] & M, a5 = a[5] & M, a6 = a[6] & M, a7 = a[7] & M;
+        long b0 = b[0] & M, b1 = b[1] & M, b2 = b[2] & M, b3 = b[3] & M;
+        long b4 = b[4] & M, b5 = b[5] & M, b6 = b[6] & M, b7 = b[7] & M;
+        long c = 0;
+        long lo;
+        long hi;
+        long p;
+
+        // Product scanning: each 64-bit partial product is split into halves
+        // so a column of up to eight of them cannot overflow.
+        // column 0
+        lo = 0;
+        hi = 0;
+        p = a0 * b0;
+        lo += p & M;
+        hi += p >>> 32;
+        c += lo;
+        long t0 = c & M;
+        c = (c >>> 32) + hi;
+        // column 1
+        lo = 0;
+        hi = 0;
+        p = a0 * b1;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a1 * b0;
+        lo += p & M;
+        hi += p >>> 32;
+        c += lo;
+        long t1 = c & M;
+        c = (c >>> 32) + hi;
+        // column 2
+        lo = 0;
+        hi = 0;
+        p = a0 * b2;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a1 * b1;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a2 * b0;
+        lo += p & M;
+        hi += p >>> 32;
+        c += lo;
+        long t2 = c & M;
+        c = (c >>> 32) + hi;
+        // column 3
+        lo = 0;
+        hi = 0;
+        p = a0 * b3;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a1 * b2;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a2 * b1;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a3 * b0;
+        lo += p & M;
+        hi += p >>> 32;
+        c += lo;
+        long t3 = c & M;
+        c = (c >>> 32) + hi;
+        // column 4
+        lo = 0;
+        hi = 0;
+        p = a0 * b4;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a1 * b3;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a2 * b2;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a3 * b1;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a4 * b0;
+        lo += p & M;
+        hi += p >>> 32;
+        c += lo;
+        long t4 = c & M;
+        c = (c >>> 32) + hi;
+        // column 5
+        lo = 0;
+        hi = 0;
+        p = a0 * b5;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a1 * b4;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a2 * b3;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a3 * b2;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a4 * b1;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a5 * b0;
+        lo += p & M;
+        hi += p >>> 32;
+        c += lo;
+        long t5 = c & M;
+        c = (c >>> 32) + hi;
+        // column 6
+        lo = 0;
+        hi = 0;
+        p = a0 * b6;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a1 * b5;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a2 * b4;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a3 * b3;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a4 * b2;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a5 * b1;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a6 * b0;
+        lo += p & M;
+        hi += p >>> 32;
+        c += lo;
+        long t6 = c & M;
+        c = (c >>> 32) + hi;
+        // column 7
+        lo = 0;
+        hi = 0;
+        p = a0 * b7;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a1 * b6;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a2 * b5;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a3 * b4;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a4 * b3;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a5 * b2;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a6 * b1;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a7 * b0;
+        lo += p & M;
+        hi += p >>> 32;
+        c += lo;
+        long t7 = c & M;
+        c = (c >>> 32) + hi;
+        // column 8
+        lo = 0;
+        hi = 0;
+        p = a1 * b7;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a2 * b6;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a3 * b5;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a4 * b4;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a5 * b3;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a6 * b2;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a7 * b1;
+        lo += p & M;
+        hi += p >>> 32;
+        c += lo;
+        long t8 = c & M;
+        c = (c >>> 32) + hi;
+        // column 9
+        lo = 0;
+        hi = 0;
+        p = a2 * b7;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a3 * b6;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a4 * b5;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a5 * b4;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a6 * b3;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a7 * b2;
+        lo += p & M;
+        hi += p >>> 32;
+        c += lo;
+        long t9 = c & M;
+        c = (c >>> 32) + hi;
+        // column 10
+        lo = 0;
+        hi = 0;
+        p = a3 * b7;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a4 * b6;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a5 * b5;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a6 * b4;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a7 * b3;
+        lo += p & M;
+        hi += p >>> 32;
+        c += lo;
+        long t10 = c & M;
+        c = (c >>> 32) + hi;
+        // column 11
+        lo = 0;
+        hi = 0;
+        p = a4 * b7;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a5 * b6;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a6 * b5;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a7 * b4;
+        lo += p & M;
+        hi += p >>> 32;
+        c += lo;
+        long t11 = c & M;
+        c = (c >>> 32) + hi;
+        // column 12
+        lo = 0;
+        hi = 0;
+        p = a5 * b7;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a6 * b6;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a7 * b5;
+        lo += p & M;
+        hi += p >>> 32;
+        c += lo;
+        long t12 = c & M;
+        c = (c >>> 32) + hi;
+        // column 13
+        lo = 0;
+        hi = 0;
+        p = a6 * b7;
+        lo += p & M;
+        hi += p >>> 32;
+        p = a7 * b6;
+        lo += p & M;
+        hi += p >>> 32;
+        c += lo;
+        long t13 = c & M;
+        c = (c >>> 32) + hi;
+        // column 14
+        lo = 0;
+        hi = 0;
+        p = a7 * b7;
+        lo += p & M;
+        hi += p >>> 32;
+        c += lo;
+        long t14 = c & M;
+        c = (c >>> 32) + hi;
+        long t15 = c & M;
+
+        // Fold the high half, using 2^256 = 2^32 + 977 mod p
+        c = t0 + t8 * K_LO;
+        r[0] = (int) c;
+        c >>>= 32;
+        c += t1 + t9 * K_LO + t8;
+        r[1] = (int) c;
+        c >>>= 32;
+        c += t2 + t10 * K_LO + t9;
+        r[2] = (int) c;
+        c >>>= 32;
+        c += t3 + t11 * K_LO + t10;
+        r[3] = (int) c;
+        c >>>= 32;
+        c += t4 + t12 * K_LO + t11;
+        r[4] = (int) c;
+        c >>>= 32;
+        c += t5 + t13 * K_LO + t12;
+        r[5] = (int) c;
+        c >>>= 32;
+        c += t6 + t14 * K_LO + t13;
+        r[6] = (int) c;
+        c >>>= 32;
+        c += t7 + t15 * K_LO + t14;
+        r[7] = (int) c;
+        c >>>= 32;
+        c += t15;
+        fold(r, c);
+    }
+
+    /**
+     * r = a^2 mod p.
+     *
+     * @param r the destination.
+     * @param a the field element.
+     */
+    public static void sqr(int[] r, int[] a) {
+        mul(r, a, a);
+    }
+
+    /**
+     * r = a^(2^n) mod p, by n repeated squarings.
+     */
+    private static void sqrN(int[] r, int[] a, int n) {
+        sqr(r, a);
+        for (int i = 1; i < n; i++) {
+            sqr(r, r);
+        }
+    }
+
+    /**
+     * r = 1 / a mod p, computed as a^(p - 2) with a fixed addition chain.
+     * The inverse of zero is zero.
+     *
+     * @param r the destination.
+     * @param a the field element.
+     */
+    public static void inv(int[] r, int[] a) {
+        int[] x2 = create();
+        int[] x3 = create();
+        int[] x22 = create();
+        int[] t = create();
+        powChain(t, x2, x3, x22, a);
+        // t = a^(2^223 - 1); finish with the low bits of p - 2
+        sqrN(t, t, 23);
+        mul(t, t, x22);
+        sqrN(t, t, 5);
+        mul(t, t, a);
+        sqrN(t, t, 3);
+        mul(t, t, x2);
+        sqrN(t, t, 2);
+        mul(r, t, a);
+    }
+
+    /**
+     * r = sqrt(a) mod p, computed as a^((p + 1) / 4) with a fixed addition
+     * chain, which is a square root whenever one exists since p = 3 mod 4.
+     *
+     * @param r the destination; either root may be returned.
+     * @param a the field element.
+     * @return true if a is a square, false if r does not hold a root.
+     */
+    public static boolean sqrt(int[] r, int[] a) {
+        int[] x2 = create();
+        int[] x3 = create();
+        int[] x22 = create();
+        int[] t = create();
+        powChain(t, x2, x3, x22, a);
+        // t = a^(2^223 - 1); finish with the low bits of (p + 1) / 4
+        sqrN(t, t, 23);
+        mul(t, t, x22);
+        sqrN(t, t, 6);
+        mul(t, t, x2);
+        sqrN(t, t, 2);
+        sqr(x2, t);
+        set(r, t);
+        return equals(x2, a);
+    }
+
+    /**
+     * Computes the powers of a shared by the inversion and square root
+     * chains: x2 = a^(2^2 - 1), x3 = a^(2^3 - 1), x22 = a^(2^22 - 1) and
+     * x223 = a^(2^223 - 1).
+     */
+    static void powChain(int[] x223, int[] x2, int[] x3, int[] x22, int[] a) {
+        int[] x6 = create();
+        int[] x9 = create();
+        int[] x11 = create();
+        int[] x44 = create();
+        int[] x88 = create();
+        sqr(x2, a);
+        mul(x2, x2, a);
+        sqr(x3, x2);
+        mul(x3, x3, a);
+        sqrN(x6, x3, 3);
+        mul(x6, x6, x3);
+        sqrN(x9, x6, 3);
+        mul(x9, x9, x3);
+        sqrN(x11, x9, 2);
+        mul(x11, x11, x2);
+        sqrN(x22, x11, 11);
+        mul(x22, x22, x11);
+        sqrN(x44, x22, 22);
+        mul(x44, x44, x22);
+        sqrN(x88, x44, 44);
+        mul(x88, x88, x44);
+        int[] x176 = x6;
+        sqrN(x176, x88, 88);
+        mul(x176, x176, x88);
+        int[] x220 = x9;
+        sqrN(x220, x176, 44);
+        mul(x220, x220, x44);
+        sqrN(x223, x220, 3);
+        mul(x223, x223, x3);
+    }
+
+    /**
+     * Folds a carry word c at weight 2^256 back into r, then reduces r into
+     * [0, p).
+     */
+    private static void fold(int[] r, long c) {
+        for (int round = 0; round < 2; round++) {
+            long d = (r[0] & M) + c * K_LO;
+            r[0] = (int) d;
+            d >>>= 32;
+            d += (r[1] & M) + c;
+            r[1] = (int) d;
+            d >>>= 32;
+            for (int i = 2; i < LIMBS; i++) {
+                d += r[i] & M;
+                r[i] = (int) d;
+                d >>>= 32;
+            }
+            // A second round absorbs the single carry the first can leave
+            c = d;
+        }
+        reduceOnce(r, 0);
+    }
+
+    /**
+     * Subtracts p from the 257-bit value carry * 2^256 + r if it is at least
+     * p, which must be below 2p.
+     */
+    private static void reduceOnce(int[] r, int carry) {
+        // r + (2^256 - p) carries out exactly when r >= p
+        long c = (r[0] & M) + K_LO;
+        int s0 = (int) c;
+        c = (c >>> 32) + (r[1] & M) + 1;
+        int s1 = (int) c;
+        c = (c >>> 32) + (r[2] & M);
+        int s2 = (int) c;
+        c = (c >>> 32) + (r[3] & M);
+        int s3 = (int) c;
+        c = (c >>> 32) + (r[4] & M);
+        int s4 = (int) c;
+        c = (c >>> 32) + (r[5] & M);
+        int s5 = (int) c;
+        c = (c >>> 32) + (r[6] & M);
+        int s6 = (int) c;
+        c = (c >>> 32) + (r[7] & M);
+        int s7 = (int) c;
+        int flag = -((int) (c >>> 32) | carry);
+        r[0] ^= (r[0] ^ s0) & flag;
+        r[1] ^= (r[1] ^ s1) & flag;
+        r[2] ^= (r[2] ^ s2) & flag;
+        r[3] ^= (r[3] ^ s3) & flag;
+        r[4] ^= (r[4] ^ s4) & flag;
+        r[5] ^= (r[5] ^ s5) & flag;
+        r[6] ^= (r[6] ^ s6) & flag;
+        r[7] ^= (r[7] ^ s7) & flag;
+    }
+}
@@ -0,0 +1,174 @@
+package com.eawf.deriver.ecc;
+
+import java.math.BigInteger;
+import java.security.spec.ECPoint;
+
+/**
+ * Variable-base scalar multiplication accelerated by the SECP-256K1
+ * endomorphism (x, y) -> (beta * x, y), which multiplies a point by lambda.
+ * The scalar is split into k = k1 + k2 * lambda with k1 and k2 of about 128
+ * bits (Gallant, Lambert and Vanstone), both halves are recoded in width-5
+ * NAF, and k1 * P + k2 * lambda(P) is evaluated with a single chain of
+ * doublings (Shamir's trick), halving the doublings of a plain 256-bit
+ * multiplication.
+ * <p>
+ * The running time depends on the scalar, so this must only be used with
+ * public scalars; see {@link ConstantTimeMultiply} for private keys.
+ *
+ * @author Carson Mullins
+ */
+public final class GlvMultiply {
+
+    private GlvMultiply() {
+    } // Non-instantiable
+
+    private static final int WINDOW = 5;
+    private static final int TABLE_SIZE = 1 << (WINDOW - 2);
+
+    // Cube root of unity in GF(p), and the matching cube root of unity mod n
+    private static final int[] BETA = Field.create();
+    static final BigInteger LAMBDA = new BigInteger("5363AD4CC05C30E0A5261C028812645A122E22EA20816678DF02967C1B23BD72", 16);
+
+    // Short basis of the lattice {(a, b) : a + b * lambda = 0 mod n}
+    private static final BigInteger A1 = new BigInteger("3086D221A7D46BCDE86C90E49284EB15", 16);
+    private static final BigInteger B1 = new BigInteger("-E4437ED6010E88286F547FA90ABFE4C3", 16);
+    private static final BigInteger A2 = new BigInteger("114CA50F7A8E2F3F657C1108D9D44CFD8", 16);
+    private static final BigInteger B2 = A1;
+    private static final BigInteger HALF_N = CurveParams.n.shiftRight(1);
+
+    static {
+        Field.fromBigInteger(BETA, new BigInteger("7AE96A2B657C07106E64479EAC3434E99CF0497512F58995C1396C28719501EE", 16));
+    }
+
+    /**
+     * Computes k * P.
+     *
+     * @param p the point to multiply.
+     * @param k the scalar, reduced modulo n.
+     * @return the point k * P.
+     */
+    public static ECPoint multiply(ECPoint p, BigInteger k) {
+        return multiply(new JacobianPoint(p), k).toECPoint();
+    }
+
+    /**
+     * Computes k * P.
+     *
+     * @param p the point to multiply.
+     * @param k the scalar, reduced modulo n.
+     * @return the point k * P.
+     */
+    public static JacobianPoint multiply(JacobianPoint p, BigInteger k) {
+        BigInteger[] split = split(k.mod(CurveParams.n));
+        return multiply(tables(p), split[0], split[1]);
+    }
+
+    /**
+     * Computes k1 * P + k2 * lambda(P) from the odd multiples P, 3P, ...,
+     * 15P and their images under the endomorphism.
+     */
+    static JacobianPoint multiply(JacobianPoint[][] tables, BigInteger k1, BigInteger k2) {
+        int[] naf1 = wnaf(k1);
+        int[] naf2 = wnaf(k2);
+        JacobianPoint[] table = tables[0];
+        JacobianPoint[] lambdaTable = tables[1];
+        JacobianPoint r = new JacobianPoint();
+        JacobianPoint neg = new JacobianPoint();
+        for (int i = Math.max(naf1.length, naf2.length) - 1; i >= 0; i--) {
+            r.twice(r);
+            addDigit(r, neg, table, i < naf1.length ? naf1[i] : 0);
+            addDigit(r, neg, lambdaTable, i < naf2.length ? naf2[i] : 0);
+        }
+        return r;
+    }
+
+    /**
+     * Adds digit * P to r, where the table holds the odd multiples of P.
+     */
+    private static void addDigit(JacobianPoint r, JacobianPoint neg, JacobianPoint[] table, int digit) {
+        if (digit > 0) {
+            r.add(r, table[digit >> 1]);
+        } else if (digit < 0) {
+            neg.set(table[-digit >> 1]);
+            neg.negate();
+            r.add(r, neg);
+        }
+    }
+
+    /**
+     * @return the odd multiples of P and of lambda(P).
+     */
+    static JacobianPoint[][] tables(JacobianPoint p) {
+        JacobianPoint[] table = oddMultiples(p);
+        JacobianPoint[] lambdaTable = new JacobianPoint[TABLE_SIZE];
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            lambdaTable[i] = new JacobianPoint();
+            lambdaTable[i].set(table[i]);
+            Field.mul(lambdaTable[i].x, lambdaTable[i].x, BETA);
+        }
+        return new JacobianPoint[][]{table, lambdaTable};
+    }
+
+    /**
+     * @return P, 3P, 5P, ..., (2^(w-1) - 1)P.
+     */
+    static JacobianPoint[] oddMultiples(JacobianPoint p) {
+        JacobianPoint[] table = new JacobianPoint[TABLE_SIZE];
+        JacobianPoint twoP = new JacobianPoint();
+        twoP.twice(p);
+        table[0] = new JacobianPoint();
+        table[0].set(p);
+        for (int i = 1; i < TABLE_SIZE; i++) {
+            table[i] = new JacobianPoint();
+            table[i].add(table[i - 1], twoP);
+        }
+        return table;
+    }
+
+    /**
+     * Splits k into k1 + k2 * lambda = k mod n with |k1|, |k2| below about
+     * 2^128, by rounding k onto the short lattice basis.
+     *
+     * @param k the scalar, in [0, n).
+     * @return {k1, k2}, either of which may be negative.
+     */
+    static BigInteger[] split(BigInteger k) {
+        BigInteger c1 = B2.multiply(k).add(HALF_N).divide(CurveParams.n);
+        BigInteger c2 = B1.negate().multiply(k).add(HALF_N).divide(CurveParams.n);
+        BigInteger k1 = k.subtract(c1.multiply(A1)).subtract(c2.multiply(A2));
+        BigInteger k2 = c1.multiply(B1).add(c2.multiply(B2)).negate();
+        return new BigInteger[]{k1, k2};
+    }
+
+    /**
+     * Recodes k in width-w NAF: digit i is zero or odd with absolute value
+     * below 2^(w-1), any w consecutive digits hold at most one non-zero
+     * digit, and k = sum(digit_i * 2^i).
+     */
+    static int[] wnaf(BigInteger k) {
+        int sign = k.signum() < 0 ? -1 : 1;
+        BigInteger s = k.abs();
+        int len = s.bitLength() + 1;
+        int[] naf = new int[len];
+        int carry = 0;
+        int bit = 0;
+        while (bit < len) {
+            if ((s.testBit(bit) ? 1 : 0) == carry) {
+                bit++;
+                continue;
+            }
+            int now = Math.min(WINDOW, len - bit);
+            int word = carry;
+            for (int j = 0; j < now; j++) {
+                if (s.testBit(bit + j)) {
+                    word += 1 << j;
+                }
+            }
+            carry = (word >> (WINDOW - 1)) & 1;
+            word -= carry << WINDOW;
+            naf[bit] = sign * word;
+            bit += now;
+        }
+        return naf;
+    }
+}
@@ -0,0 +1,195 @@
+package com.eawf.deriver.ecc;
+
+import java.security.spec.ECPoint;
+
+/**
+ * A mutable SECP-256K1 point in Jacobian coordinates (X, Y, Z) representing
+ * the affine point (X/Z^2, Y/Z^3). The formulas are the fastest known for
+ * a = 0 (dbl-2009-l and add-2007-bl from the
+ * <a href="https://hyperelliptic.org/EFD/g1p/auto-shortw-jacobian-0.html">Explicit-Formulas
+ * Database</a>) but branch on their inputs, so this class must only be used
+ * with public scalars; see {@link ProjectivePoint} for the constant-time
+ * counterpart.
+ *
+ * @author Carson Mullins
+ */
+public final class JacobianPoint {
+
+    final int[] x = Field.create();
+    final int[] y = Field.create();
+    final int[] z = Field.create();
+    boolean infinity = true;
+
+    // Scratch space, so that the point operations allocate nothing
+    private final int[] t0 = Field.create();
+    private final int[] t1 = Field.create();
+    private final int[] t2 = Field.create();
+    private final int[] t3 = Field.create();
+    private final int[] t4 = Field.create();
+    private final int[] t5 = Field.create();
+    private final int[] t6 = Field.create();
+
+    /**
+     * Creates the point at infinity.
+     */
+    public JacobianPoint() {
+    }
+
+    /**
+     * Creates a point from its affine coordinates.
+     *
+     * @param p the affine point, which may be the point at infinity.
+     */
+    public JacobianPoint(ECPoint p) {
+        if (!p.equals(ECPoint.POINT_INFINITY)) {
+            Field.fromBigInteger(x, p.getAffineX());
+            Field.fromBigInteger(y, p.getAffineY());
+            Field.set(z, 1);
+            infinity = false;
+        }
+    }
+
+    /**
+     * Copies another point into this one.
+     *
+     * @param p the point to copy.
+     */
+    public void set(JacobianPoint p) {
+        Field.set(x, p.x);
+        Field.set(y, p.y);
+        Field.set(z, p.z);
+        infinity = p.infinity;
+    }
+
+    /**
+     * @return true if this is the point at infinity.
+     */
+    public boolean isInfinity() {
+        return infinity;
+    }
+
+    /**
+     * Negates this point in place.
+     */
+    public void negate() {
+        Field.negate(y, y);
+    }
+
+    /**
+     * Sets this point to 2p. The argument may be this point.
+     *
+     * @param p the point to double.
+     */
+    public void twice(JacobianPoint p) {
+        if (p.infinity || Field.isZero(p.y)) {
+            infinity = true;
+            return;
+        }
+        Field.sqr(t0, p.x);              // A = X1^2
+        Field.sqr(t1, p.y);              // B = Y1^2
+        Field.sqr(t2, t1);               // C = B^2
+        Field.add(t3, p.x, t1);
+        Field.sqr(t3, t3);
+        Field.sub(t3, t3, t0);
+        Field.sub(t3, t3, t2);
+        Field.add(t3, t3, t3);           // D = 2 * ((X1 + B)^2 - A - C)
+        Field.add(t4, t0, t0);
+        Field.add(t4, t4, t0);           // E = 3 * A
+        Field.sqr(t5, t4);               // F = E^2
+        Field.mul(z, p.y, p.z);
+        Field.add(z, z, z);              // Z3 = 2 * Y1 * Z1
+        Field.sub(x, t5, t3);
+        Field.sub(x, x, t3);             // X3 = F - 2 * D
+        Field.sub(t3, t3, x);
+        Field.mul(t3, t4, t3);
+        Field.add(t2, t2, t2);
+        Field.add(t2, t2, t2);
+        Field.add(t2, t2, t2);
+        Field.sub(y, t3, t2);            // Y3 = E * (D - X3) - 8 * C
+        infinity = false;
+    }
+
+    /**
+     * Sets this point to p + q. Either argument may be this point.
+     *
+     * @param p the first point.
+     * @param q the second point.
+     */
+    public void add(JacobianPoint p, JacobianPoint q) {
+        if (p.infinity) {
+            set(q);
+            return;
+        }
+        if (q.infinity) {
+            set(p);
+            return;
+        }
+        Field.sqr(t0, p.z);              // Z1Z1
+        Field.sqr(t1, q.z);              // Z2Z2
+        Field.mul(t2, p.x, t1);          // U1 = X1 * Z2Z2
+        Field.mul(t3, q.x, t0);          // U2 = X2 * Z1Z1
+        Field.mul(t4, p.y, q.z);
+        Field.mul(t4, t4, t1);           // S1 = Y1 * Z2 * Z2Z2
+        Field.mul(t5, q.y, p.z);
+        Field.mul(t5, t5, t0);           // S2 = Y2 * Z1 * Z1Z1
+        Field.sub(t3, t3, t2);           // H = U2 - U1
+        Field.sub(t5, t5, t4);
+        Field.add(t5, t5, t5);           // r = 2 * (S2 - S1)
+        if (Field.isZero(t3)) {
+            if (Field.isZero(t5)) {
+                twice(p);
+            } else {
+                infinity = true;
+            }
+            return;
+        }
+        Field.mul(t6, p.z, q.z);
+        Field.mul(t6, t6, t3);
+        Field.add(z, t6, t6);            // Z3 = 2 * Z1 * Z2 * H
+        Field.add(t0, t3, t3);
+        Field.sqr(t0, t0);               // I = (2 * H)^2
+        Field.mul(t1, t3, t0);           // J = H * I
+        Field.mul(t2, t2, t0);           // V = U1 * I
+        Field.sqr(x, t5);
+        Field.sub(x, x, t1);
+        Field.sub(x, x, t2);
+        Field.sub(x, x, t2);             // X3 = r^2 - J - 2 * V
+        Field.sub(t2, t2, x);
+        Field.mul(t2, t5, t2);
+        Field.mul(t4, t4, t1);
+        Field.add(t4, t4, t4);
+        Field.sub(y, t2, t4);            // Y3 = r * (V - X3) - 2 * S1 * J
+        infinity = false;
+    }
+
+    /**
+     * Writes the affine coordinates of this point.
+     *
+     * @param ax the destination of the affine x-coordinate.
+     * @param ay the destination of the affine y-coordinate.
+     * @throws ArithmeticException if this is the point at infinity.
+     */
+    public void getAffine(int[] ax, int[] ay) {
+        if (infinity) {
+            throw new ArithmeticException("Point at infinity has no affine coordinates");
+        }
+        Field.inv(t0, z);
+        Field.sqr(t1, t0);
+        Field.mul(ax, x, t1);
+        Field.mul(t1, t1, t0);
+        Field.mul(ay, y, t1);
+    }
+
+    /**
+     * @return this point as an affine {@link ECPoint}.
+     */
+    public ECPoint toECPoint() {
+        if (infinity) {
+            return ECPoint.POINT_INFINITY;
+        }
+        int[] ax = Field.create();
+        int[] ay = Field.create();
+        getAffine(ax, ay);
+        return new ECPoint(Field.toBigInteger(ax), Field.toBigInteger(ay));
+    }
+}
@@ -0,0 +1,72 @@
+package com.eawf.deriver.ecc;
+
+import java.security.spec.ECPoint;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A small least-recently-used cache of precomputed tables for base points
+ * other than G, so that repeated multiplications of the same point (ECDH
+ * against a handful of counterparties, say) build its table only once.
+ * Tables depend on the public point alone, never on a scalar. A table may be
+ * built only from a point's {@code minUses}-th use on, so that points used
+ * once do not pay for a table they never reuse. Safe for use by several
+ * threads; two threads missing at once may both build the table.
+ *
+ * @param <T> the type of the table.
+ * @author Carson Mullins
+ */
+final class PointTableCache<T> {
+
+    private final int minUses;
+    private final Function<ECPoint, T> builder;
+    private final Map<ECPoint, Slot<T>> entries;
+
+    /**
+     * @param capacity the most points remembered.
+     * @param minUses the use of a point from which on its table is built.
+     * @param builder computes the table of a point.
+     */
+    PointTableCache(int capacity, int minUses, Function<ECPoint, T> builder) {
+        this.minUses = minUses;
+        this.builder = builder;
+        this.entries = new LinkedHashMap<ECPoint, Slot<T>>(2 * capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ECPoint, Slot<T>> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Records a use of a point and returns its table.
+     *
+     * @param p the base point.
+     * @return the table of p, or null if p has been used fewer than
+     * {@code minUses} times since it entered the cache.
+     */
+    T get(ECPoint p) {
+        Slot<T> slot;
+        synchronized (entries) {
+            slot = entries.computeIfAbsent(p, q -> new Slot<>());
+            if (slot.table != null) {
+                return slot.table;
+            }
+            if (++slot.uses < minUses) {
+                return null;
+            }
+        }
+        T table = builder.apply(p);
+        synchronized (entries) {
+            slot.table = table;
+        }
+        return table;
+    }
+
+    private static final class Slot<T> {
+
+        int uses;
+        T table;
+    }
+}
@@ -0,0 +1,363 @@
+package com.eawf.deriver.ecc;
+
+import java.security.spec.ECPoint;
+
+/**
+ * A mutable SECP-256K1 point in homogeneous projective coordinates (X : Y : Z)
+ * representing the affine point (X/Z, Y/Z), with the point at infinity as
+ * (0 : 1 : 0). Addition and doubling use the complete formulas of Renes,
+ * Costello and Batina
+ * (<a href="https://eprint.iacr.org/2015/1060">ePrint 2015/1060</a>,
+ * algorithms 7 and 9 for a = 0), which have no exceptional cases and so run
+ * the same sequence of field operations for every input.
+ *
+ * @author Carson Mullins
+ */
+public final class ProjectivePoint {
+
+    /**
+     * The number of ints {@link #store(int[], int)} writes: X, Y and Z
+     * without the scratch space, for tables of many points.
+     */
+    public static final int PACKED_LEN = 3 * Field.LIMBS;
+
+    // 3 * b, the only curve constant the formulas need
+    private static final int[] B3 = {21, 0, 0, 0, 0, 0, 0, 0};
+    // b itself, for recovering Y from X
+    private static final int[] SEVEN = {7, 0, 0, 0, 0, 0, 0, 0};
+
+    final int[] x = Field.create();
+    final int[] y = Field.create();
+    final int[] z = Field.create();
+
+    // Scratch space, so that the point operations allocate nothing
+    private final int[] t0 = Field.create();
+    private final int[] t1 = Field.create();
+    private final int[] t2 = Field.create();
+    private final int[] t3 = Field.create();
+    private final int[] t4 = Field.create();
+    private final int[] x3 = Field.create();
+    private final int[] y3 = Field.create();
+    private final int[] z3 = Field.create();
+
+    /**
+     * Creates the point at infinity.
+     */
+    public ProjectivePoint() {
+        y[0] = 1;
+    }
+
+    /**
+     * Creates a point from its affine coordinates.
+     *
+     * @param p the affine point, which may be the point at infinity.
+     */
+    public ProjectivePoint(ECPoint p) {
+        set(p);
+    }
+
+    /**
+     * Sets this point to the given affine point.
+     *
+     * @param p the affine point, which may be the point at infinity.
+     */
+    public void set(ECPoint p) {
+        if (p.equals(ECPoint.POINT_INFINITY)) {
+            setInfinity();
+            return;
+        }
+        Field.fromBigInteger(x, p.getAffineX());
+        Field.fromBigInteger(y, p.getAffineY());
+        Field.set(z, 1);
+    }
+
+    /**
+     * Sets this point to the given affine coordinates.
+     *
+     * @param ax the affine x-coordinate.
+     * @param ay the affine y-coordinate.
+     */
+    public void setAffine(int[] ax, int[] ay) {
+        Field.set(x, ax);
+        Field.set(y, ay);
+        Field.set(z, 1);
+    }
+
+    /**
+     * Sets this point from its 33-byte compressed encoding.
+     *
+     * @param in the array holding the encoding (0x02 or 0x03 || X).
+     * @param off the offset of the encoding within {@code in}.
+     * @return false, leaving this point unchanged, if the encoding is not a
+     * point on the curve.
+     */
+    public boolean setCompressed(byte[] in, int off) {
+        if (!decompress(in, off, t0, t1)) {
+            return false;
+        }
+        setAffine(t0, t1);
+        return true;
+    }
+
+    /**
+     * Recovers the affine coordinates of a compressed public key: Y is the
+     * square root of X^3 + 7 whose parity matches the prefix byte.
+     *
+     * @param in the array holding the encoding (0x02 or 0x03 || X).
+     * @param off the offset of the encoding within {@code in}.
+     * @param ax the destination of the affine x-coordinate.
+     * @param ay the destination of the affine y-coordinate.
+     * @return false if the prefix is invalid, X is not below p or X^3 + 7 is
+     * not a square.
+     */
+    public static boolean decompress(byte[] in, int off, int[] ax, int[] ay) {
+        int prefix = in[off];
+        if (prefix != 0x02 && prefix != 0x03) {
+            return false;
+        }
+        Field.fromBytes(ax, in, off + 1);
+        byte[] check = new byte[32];
+        Field.toBytes(ax, check, 0);
+        for (int i = 0; i < 32; i++) {
+            if (check[i] != in[off + 1 + i]) {
+                return false;  // X was reduced, so it was not below p
+            }
+        }
+        int[] rhs = Field.create();
+        Field.sqr(rhs, ax);
+        Field.mul(rhs, rhs, ax);
+        Field.add(rhs, rhs, SEVEN);
+        if (!Field.sqrt(ay, rhs)) {
+            return false;
+        }
+        if (Field.isOdd(ay) != (prefix == 0x03)) {
+            Field.negate(ay, ay);
+        }
+        return true;
+    }
+
+    /**
+     * Copies another point into this one.
+     *
+     * @param p the point to copy.
+     */
+    public void set(ProjectivePoint p) {
+        Field.set(x, p.x);
+        Field.set(y, p.y);
+        Field.set(z, p.z);
+    }
+
+    /**
+     * Sets this point to the point at infinity.
+     */
+    public void setInfinity() {
+        Field.set(x, 0);
+        Field.set(y, 1);
+        Field.set(z, 0);
+    }
+
+    /**
+     * @return true if this is the point at infinity.
+     */
+    public boolean isInfinity() {
+        return Field.isZero(z);
+    }
+
+    /**
+     * Copies p into this point if flag is -1, leaves it unchanged if flag is
+     * 0, without branching on flag.
+     *
+     * @param p the point to copy.
+     * @param flag either 0 or -1.
+     */
+    public void cmov(ProjectivePoint p, int flag) {
+        Field.cmov(x, p.x, flag);
+        Field.cmov(y, p.y, flag);
+        Field.cmov(z, p.z, flag);
+    }
+
+    /**
+     * Copies the point packed at packed[off] by {@link #store(int[], int)}
+     * into this point if flag is -1, leaves it unchanged if flag is 0,
+     * without branching on flag.
+     *
+     * @param packed the array holding the packed point.
+     * @param off the offset of the packed point within packed.
+     * @param flag either 0 or -1.
+     */
+    public void cmov(int[] packed, int off, int flag) {
+        for (int i = 0; i < Field.LIMBS; i++) {
+            x[i] ^= (x[i] ^ packed[off + i]) & flag;
+            y[i] ^= (y[i] ^ packed[off + Field.LIMBS + i]) & flag;
+            z[i] ^= (z[i] ^ packed[off + 2 * Field.LIMBS + i]) & flag;
+        }
+    }
+
+    /**
+     * Writes X, Y and Z to {@value #PACKED_LEN} consecutive ints.
+     *
+     * @param out the destination array.
+     * @param off the offset within out to write to.
+     */
+    public void store(int[] out, int off) {
+        System.arraycopy(x, 0, out, off, Field.LIMBS);
+        System.arraycopy(y, 0, out, off + Field.LIMBS, Field.LIMBS);
+        System.arraycopy(z, 0, out, off + 2 * Field.LIMBS, Field.LIMBS);
+    }
+
+    /**
+     * Negates this point in place.
+     */
+    public void negate() {
+        Field.negate(y, y);
+    }
+
+    /**
+     * Sets this point to p + q. Either argument may be this point.
+     *
+     * @param p the first point.
+     * @param q the second point.
+     */
+    public void add(ProjectivePoint p, ProjectivePoint q) {
+        Field.mul(t0, p.x, q.x);
+        Field.mul(t1, p.y, q.y);
+        Field.mul(t2, p.z, q.z);
+        Field.add(t3, p.x, p.y);
+        Field.add(t4, q.x, q.y);
+        Field.mul(t3, t3, t4);
+        Field.add(t4, t0, t1);
+        Field.sub(t3, t3, t4);
+        Field.add(t4, p.y, p.z);
+        Field.add(x3, q.y, q.z);
+        Field.mul(t4, t4, x3);
+        Field.add(x3, t1, t2);
+        Field.sub(t4, t4, x3);
+        Field.add(x3, p.x, p.z);
+        Field.add(y3, q.x, q.z);
+        Field.mul(x3, x3, y3);
+        Field.add(y3, t0, t2);
+        Field.sub(y3, x3, y3);
+        Field.add(x3, t0, t0);
+        Field.add(t0, x3, t0);
+        Field.mul(t2, B3, t2);
+        Field.add(z3, t1, t2);
+        Field.sub(t1, t1, t2);
+        Field.mul(y3, B3, y3);
+        Field.mul(x3, t4, y3);
+        Field.mul(t2, t3, t1);
+        Field.sub(x3, t2, x3);
+        Field.mul(y3, y3, t0);
+        Field.mul(t1, t1, z3);
+        Field.add(y3, t1, y3);
+        Field.mul(t0, t0, t3);
+        Field.mul(z3, z3, t4);
+        Field.add(z3, z3, t0);
+        Field.set(x, x3);
+        Field.set(y, y3);
+        Field.set(z, z3);
+    }
+
+    /**
+     * Sets this point to 2p. The argument may be this point.
+     *
+     * @param p the point to double.
+     */
+    public void twice(ProjectivePoint p) {
+        Field.sqr(t0, p.y);
+        Field.add(z3, t0, t0);
+        Field.add(z3, z3, z3);
+        Field.add(z3, z3, z3);
+        Field.mul(t1, p.y, p.z);
+        Field.sqr(t2, p.z);
+        Field.mul(t2, B3, t2);
+        Field.mul(x3, t2, z3);
+        Field.add(y3, t0, t2);
+        Field.mul(z3, t1, z3);
+        Field.add(t1, t2, t2);
+        Field.add(t2, t1, t2);
+        Field.sub(t0, t0, t2);
+        Field.mul(y3, t0, y3);
+        Field.add(y3, x3, y3);
+        Field.mul(t1, p.x, p.y);
+        Field.mul(x3, t0, t1);
+        Field.add(x3, x3, x3);
+        Field.set(x, x3);
+        Field.set(y, y3);
+        Field.set(z, z3);
+    }
+
+    /**
+     * Scales the coordinates so that Z = 1, unless this is the point at
+     * infinity, which is left as (0 : 1 : 0). Both cases run the same
+     * operations.
+     */
+    public void normalize() {
+        int d = 0;
+        for (int i = 0; i < Field.LIMBS; i++) {
+            d |= z[i];
+        }
+        // -1 if Z = 0, else 0
+        int infinity = ~((d | -d) >> 31);
+        Field.inv(t0, z);
+        Field.mul(x, x, t0);
+        Field.mul(y, y, t0);
+        Field.mul(z, z, t0);
+        // The inverse of 0 is taken as 0, which clears Y as well
+        Field.set(t1, 1);
+        Field.cmov(y, t1, infinity);
+    }
+
+    /**
+     * Writes the affine coordinates of this point.
+     *
+     * @param ax the destination of the affine x-coordinate.
+     * @param ay the destination of the affine y-coordinate.
+     * @throws ArithmeticException if this is the point at infinity.
+     */
+    public void getAffine(int[] ax, int[] ay) {
+        if (isInfinity()) {
+            throw new ArithmeticException("Point at infinity has no affine coordinates");
+        }
+        Field.inv(t0, z);
+        Field.mul(ax, x, t0);
+        Field.mul(ay, y, t0);
+    }
+
+    /**
+     * @return this point as an affine {@link ECPoint}.
+     */
+    public ECPoint toECPoint() {
+        if (isInfinity()) {
+            return ECPoint.POINT_INFINITY;
+        }
+        int[] ax = Field.create();
+        int[] ay = Field.create();
+        getAffine(ax, ay);
+        return new ECPoint(Field.toBigInteger(ax), Field.toBigInteger(ay));
+    }
+
+    /**
+     * Writes this point in 33-byte compressed form (0x02 or 0x03 || X).
+     *
+     * @param out the destination array.
+     * @param off the offset within out to write the 33 bytes to.
+     * @throws ArithmeticException if this is the point at infinity.
+     */
+    public void encodeCompressed(byte[] out, int off) {
+        int[] ax = Field.create();
+        int[] ay = Field.create();
+        getAffine(ax, ay);
+        out[off] = (byte) (Field.isOdd(ay) ? 0x03 : 0x02);
+        Field.toBytes(ax, out, off + 1);
+    }
+
+    /**
+     * @return this point in 33-byte compressed form (0x02 or 0x03 || X).
+     * @throws ArithmeticException if this is the point at infinity.
+     */
+    public byte[] encodeCompressed() {
+        byte[] out = new byte[33];
+        encodeCompressed(out, 0);
+        return out;
+    }
+}
@@ -0,0 +1,106 @@
+package com.eawf.deriver.ecc;
+
+/**
+ * Arithmetic modulo the SECP-256K1 group order n, for private keys. Like
+ * {@link Field}, scalars are {@code int[8]} arrays of unsigned 32-bit limbs,
+ * least significant first, fully reduced into [0, n), and no operation
+ * branches on or indexes memory by the value of a scalar.
+ *
+ * @author Carson Mullins
+ */
+public final class Scalar {
+
+    private Scalar() {
+    } // Non-instantiable
+
+    /**
+     * The number of limbs in a scalar.
+     */
+    public static final int LIMBS = 8;
+
+    private static final long M = 0xFFFFFFFFL;
+    // 2^256 - n, the value 2^256 folds to when reducing
+    private static final int[] N_C = {0x2FC9BEBF, 0x402DA173, 0x50B75FC4, 0x45512319, 1, 0, 0, 0};
+
+    /**
+     * @return a new scalar equal to zero.
+     */
+    public static int[] create() {
+        return new int[LIMBS];
+    }
+
+    /**
+     * Reads a 32-byte big-endian integer, reducing it modulo n.
+     *
+     * @param r the destination.
+     * @param b the array holding the integer.
+     * @param off the offset of the integer within b.
+     * @return true if the integer was already below n and so needed no
+     * reduction.
+     */
+    public static boolean fromBytes(int[] r, byte[] b, int off) {
+        for (int i = 0; i < LIMBS; i++) {
+            int p = off + 28 - 4 * i;
+            r[i] = (b[p] & 0xFF) << 24 | (b[p + 1] & 0xFF) << 16 | (b[p + 2] & 0xFF) << 8 | (b[p + 3] & 0xFF);
+        }
+        return reduceOnce(r, 0) == 0;
+    }
+
+    /**
+     * Writes a as a 32-byte big-endian integer.
+     *
+     * @param a the scalar.
+     * @param b the destination array.
+     * @param off the offset within b to write the 32 bytes to.
+     */
+    public static void toBytes(int[] a, byte[] b, int off) {
+        Field.toBytes(a, b, off);
+    }
+
+    /**
+     * @param a the scalar.
+     * @return true if a is zero.
+     */
+    public static boolean isZero(int[] a) {
+        return Field.isZero(a);
+    }
+
+    /**
+     * r = a + b mod n.
+     *
+     * @param r the destination.
+     * @param a the first addend.
+     * @param b the second addend.
+     */
+    public static void add(int[] r, int[] a, int[] b) {
+        long c = 0;
+        for (int i = 0; i < LIMBS; i++) {
+            c += (a[i] & M) + (b[i] & M);
+            r[i] = (int) c;
+            c >>>= 32;
+        }
+        reduceOnce(r, (int) c);
+    }
+
+    /**
+     * Subtracts n from the 257-bit value carry * 2^256 + r if it is at least
+     * n, which must be below 2n.
+     *
+     * @return -1 if n was subtracted, otherwise 0.
+     */
+    private static int reduceOnce(int[] r, int carry) {
+        // r + (2^256 - n) carries out exactly when r >= n
+        int[] s = new int[LIMBS];
+        long c = 0;
+        for (int i = 0; i < LIMBS; i++) {
+            c += (r[i] & M) + (N_C[i] & M);
+            s[i] = (int) c;
+            c >>>= 32;
+        }
+        int flag = -((int) c | carry);
+        for (int i = 0; i < LIMBS; i++) {
+            r[i] ^= (r[i] ^ s[i]) & flag;
+        }
+        return flag;
+    }
+}
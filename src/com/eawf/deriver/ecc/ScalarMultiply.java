@@ -20,7 +20,9 @@ public class ScalarMultiply {
 
     /**
      * Performs scalar multiplication about the point P with integer kin where
-     * the returned point R = P * kin (scalar multiplication).
+     * the returned point R = P * kin (scalar multiplication). This is the
+     * plain double-and-add reference; {@link GlvMultiply} computes the same
+     * product several times faster for public scalars.
      *
      * @param P the generator ECPoint.
      * @param kin the BigInteger to multiply point P by.
@@ -28,7 +30,8 @@ public class ScalarMultiply {
      */
     public static ECPoint scalmult(ECPoint P, BigInteger kin) {
         ECPoint R = ECPoint.POINT_INFINITY, S = P;
-        BigInteger k = kin.mod(CurveParams.p);
+        // Points have order n, so the scalar is reduced modulo n (not p)
+        BigInteger k = kin.mod(CurveParams.n);
         int length = k.bitLength();
         byte[] binarray = new byte[length];
         for (int i = 0; i <= length - 1; i++) {
@@ -0,0 +1,47 @@
+package com.eawf.deriver.job;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Destination for the addresses produced by a {@link DerivationJob}.
+ * Addresses are written in derivation order, and {@link #sync()} marks the
+ * point a checkpoint may safely refer to.
+ *
+ * @author Carson Mullins
+ */
+public interface AddressWriter extends Closeable {
+
+    /**
+     * Writes a single derived address.
+     *
+     * @param keyId the position of the extended key in the job's key list.
+     * @param chain the chain index the address was derived on.
+     * @param index the address index.
+     * @param pubKeyHash the HASH160 of the derived public key.
+     * @param address the encoded address.
+     * @throws IOException if the address cannot be written.
+     */
+    void write(int keyId, int chain, int index, byte[] pubKeyHash, String address) throws IOException;
+
+    /**
+     * Flushes everything written so far to durable storage.
+     *
+     * @return the number of bytes of output that are durable, which is the
+     * offset the output is truncated to when a job resumes.
+     * @throws IOException if the output cannot be flushed.
+     */
+    long sync() throws IOException;
+
+    /**
+     * Abandons the output after a failure instead of finishing it: nothing
+     * still buffered is written, no trailer or final block is added, and an
+     * output file is cut back to the given length. {@link #close()} does
+     * nothing afterwards.
+     *
+     * @param length the number of bytes of an output file to keep, normally
+     * the output length of the last stored checkpoint.
+     * @throws IOException if the output file cannot be truncated.
+     */
+    void abort(long length) throws IOException;
+}
@@ -0,0 +1,98 @@
+package com.eawf.deriver.job;
+
+import com.eawf.deriver.bitcoin.AddressType;
+import com.eawf.deriver.util.BatchHash160;
+import java.util.Arrays;
+
+/**
+ * A run of consecutive indexes of one key, carried through the derive, hash
+ * and encode steps of a job. Batches are reused: every step overwrites only
+ * the slots of the indexes the batch currently holds.
+ *
+ * @author Carson Mullins
+ */
+final class Batch {
+
+    /**
+     * The most indexes a batch holds.
+     */
+    static final int CAPACITY = 256;
+
+    private static final int TYPES = AddressType.values().length;
+
+    JobKey key;
+    int first;
+    int count;
+    final byte[] pubKeys = new byte[CAPACITY * BatchHash160.KEY_LEN];
+    final byte[] hashes = new byte[CAPACITY * BatchHash160.HASH_LEN];
+    /**
+     * The addresses of index {@code first + j} at {@code j * TYPES + t}, in
+     * the order of the types encoded; null where the watch list rejected the
+     * address.
+     */
+    final String[] addresses = new String[CAPACITY * TYPES];
+    AddressType[] types;
+
+    /**
+     * Points this batch at a new run of indexes.
+     */
+    void reset(JobKey key, int first, int count) {
+        this.key = key;
+        this.first = first;
+        this.count = count;
+    }
+
+    /**
+     * Derives the compressed public key of every index.
+     */
+    void derive() {
+        key.node.derivePubKeys(first, count, pubKeys, 0);
+    }
+
+    /**
+     * Computes the HASH160 of every public key.
+     */
+    void hash(BatchHash160 hasher) {
+        hasher.hash(pubKeys, 0, count, hashes, 0);
+    }
+
+    /**
+     * Encodes the addresses of every index as each of the given types,
+     * leaving out those not on the watch list.
+     */
+    void encode(AddressType[] types, WatchList watchList) {
+        this.types = types;
+        for (int j = 0; j < count; j++) {
+            byte[] pubKeyHash = pubKeyHash(j);
+            for (int t = 0; t < types.length; t++) {
+                AddressType type = types[t];
+                addresses[j * TYPES + t] = watchList == null || watchList.contains(type, type.addressHash(pubKeyHash))
+                        ? (type.isHashed() ? type.encode(pubKeyHash) : type.encode(pubKey(j), pubKeyHash)) : null;
+            }
+        }
+    }
+
+    /**
+     * @return a copy of the public key of index {@code first + j}.
+     */
+    byte[] pubKey(int j) {
+        int off = j * BatchHash160.KEY_LEN;
+        return Arrays.copyOfRange(pubKeys, off, off + BatchHash160.KEY_LEN);
+    }
+
+    /**
+     * @return a copy of the HASH160 of index {@code first + j}.
+     */
+    byte[] pubKeyHash(int j) {
+        int off = j * BatchHash160.HASH_LEN;
+        return Arrays.copyOfRange(hashes, off, off + BatchHash160.HASH_LEN);
+    }
+
+    /**
+     * @return the address of index {@code first + j} as the {@code t}-th
+     * encoded type, or null if it was left out.
+     */
+    String address(int j, int t) {
+        return addresses[j * TYPES + t];
+    }
+}
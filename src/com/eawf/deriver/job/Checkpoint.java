@@ -0,0 +1,155 @@
+package com.eawf.deriver.job;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Properties;
+
+/**
+ * Progress of a {@link DerivationJob}: for every extended key, the highest
+ * index whose address has been flushed to the output, together with the
+ * length of the output at that moment. Stored as a properties file that is
+ * replaced atomically, so a job killed at any point resumes from the last
+ * complete checkpoint.
+ *
+ * @author Carson Mullins
+ */
+public final class Checkpoint {
+
+    private static final String FINGERPRINT = "job.fingerprint";
+    private static final String KEY_COUNT = "job.keys";
+    private static final String OUTPUT_LENGTH = "output.length";
+    private static final String HIGHEST = "key.";
+
+    private final String fingerprint;
+    private final int[] highest;
+    private long outputLength;
+
+    private Checkpoint(String fingerprint, int[] highest, long outputLength) {
+        this.fingerprint = fingerprint;
+        this.highest = highest;
+        this.outputLength = outputLength;
+    }
+
+    /**
+     * Creates a checkpoint for a job that has not written anything yet.
+     *
+     * @param fingerprint identifies the job the checkpoint belongs to.
+     * @param keyCount the number of extended keys in the job.
+     * @return an empty checkpoint.
+     */
+    public static Checkpoint fresh(String fingerprint, int keyCount) {
+        int[] highest = new int[keyCount];
+        Arrays.fill(highest, -1);
+        return new Checkpoint(fingerprint, highest, 0);
+    }
+
+    /**
+     * Reads a checkpoint previously written by {@link #store(Path)}.
+     *
+     * @param file the checkpoint file.
+     * @return the stored checkpoint.
+     * @throws IOException if the file cannot be read or is malformed.
+     */
+    public static Checkpoint load(Path file) throws IOException {
+        Properties props = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            props.load(in);
+        }
+        try {
+            int keyCount = Integer.parseInt(props.getProperty(KEY_COUNT));
+            int[] highest = new int[keyCount];
+            for (int i = 0; i < keyCount; i++) {
+                highest[i] = Integer.parseInt(props.getProperty(HIGHEST + i, "-1"));
+            }
+            long outputLength = Long.parseLong(props.getProperty(OUTPUT_LENGTH));
+            String fingerprint = props.getProperty(FINGERPRINT);
+            if (fingerprint == null) {
+                throw new IOException(file + " is missing " + FINGERPRINT + ".");
+            }
+            return new Checkpoint(fingerprint, highest, outputLength);
+        } catch (NumberFormatException | NullPointerException ex) {
+            throw new IOException(file + " is not a valid checkpoint file.", ex);
+        }
+    }
+
+    /**
+     * Writes this checkpoint to a temporary file, forces it to disk and
+     * atomically moves it over {@code file}.
+     *
+     * @param file the checkpoint file.
+     * @throws IOException if the checkpoint cannot be written.
+     */
+    public void store(Path file) throws IOException {
+        Properties props = new Properties();
+        props.setProperty(FINGERPRINT, fingerprint);
+        props.setProperty(KEY_COUNT, Integer.toString(highest.length));
+        props.setProperty(OUTPUT_LENGTH, Long.toString(outputLength));
+        for (int i = 0; i < highest.length; i++) {
+            if (highest[i] >= 0) {
+                props.setProperty(HIGHEST + i, Integer.toString(highest[i]));
+            }
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream out = Channels.newOutputStream(channel);
+            props.store(out, "Deriver-Tool checkpoint");
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return the fingerprint of the job this checkpoint belongs to.
+     */
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * @return the number of extended keys in the job.
+     */
+    public int getKeyCount() {
+        return highest.length;
+    }
+
+    /**
+     * @param keyId the position of the extended key in the job's key list.
+     * @return the highest index flushed for that key, or -1 if none.
+     */
+    public int getHighest(int keyId) {
+        return highest[keyId];
+    }
+
+    /**
+     * @param keyId the position of the extended key in the job's key list.
+     * @param index the highest index flushed for that key.
+     */
+    public void setHighest(int keyId, int index) {
+        highest[keyId] = index;
+    }
+
+    /**
+     * @return the length of the output covered by this checkpoint.
+     */
+    public long getOutputLength() {
+        return outputLength;
+    }
+
+    /**
+     * @param outputLength the length of the output covered by this
+     * checkpoint.
+     */
+    public void setOutputLength(long outputLength) {
+        this.outputLength = outputLength;
+    }
+}
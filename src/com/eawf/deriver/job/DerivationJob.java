@@ -0,0 +1,427 @@
+package com.eawf.deriver.job;
+
+import com.eawf.deriver.bitcoin.AddressType;
+import com.eawf.deriver.util.BatchHash160;
+import com.eawf.deriver.util.Bytes;
+import com.eawf.deriver.util.ExtendedKeyFormatException;
+import com.eawf.deriver.util.Hashes;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Derives the addresses of a range of indexes on one chain of every extended
+ * key in a list, optionally checkpointing its progress so that a killed job
+ * can be resumed without duplicating or skipping output.
+ * <p>
+ * A job may be split into shards run by independent processes. The range of
+ * every key is cut into blocks of {@code blockSize} indexes, the blocks of all
+ * keys are numbered in (key, index) order, and shard {@code k} of {@code N}
+ * derives the blocks whose number is {@code k} modulo {@code N}. Every shard
+ * therefore writes its addresses in the same (key, index) order as an
+ * unsharded job, and {@link ShardMerger} restores the single-run output.
+ * <p>
+ * By default every key yields the address type its version prefix implies,
+ * unless a single type is chosen for all keys. In all-types mode each child
+ * is derived once and written as a P2PKH, a P2SH-P2WPKH and a P2WPKH
+ * address, and keys that share their key material with an earlier key under
+ * another prefix are skipped, since they would only repeat its addresses.
+ *
+ * @author Carson Mullins
+ */
+public class DerivationJob {
+
+    private final List<String> extendedKeys;
+    private final List<JobKey> keys;
+    private final int chain;
+    private final int start;
+    private final int count;
+    private Path checkpointFile;
+    private long checkpointMillis;
+    private int shard = 0;
+    private int shards = 1;
+    private int blockSize = DEFAULT_BLOCK_SIZE;
+    private WatchList watchList;
+    private boolean allTypes;
+    private AddressType type;
+    private Pipeline pipeline;
+    private int verifyOneIn;
+    private SampledVerifier verifier;
+    private long verifiedSamples;
+    private long verificationNanos;
+    private final Map<Integer, Integer> duplicates = new LinkedHashMap<>();
+
+    /**
+     * The number of consecutive indexes of a key assigned to the same shard,
+     * unless overridden with {@link #setShard(int, int, int)}.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 10_000;
+
+    /**
+     * @param extendedKeys the account-level extended public or private keys
+     * to derive from, identified in the output by their position in this
+     * list.
+     * @param chain the chain index to derive (0 for receive, 1 for change).
+     * @param start the first address index to derive.
+     * @param count the number of address indexes to derive per key.
+     * @throws ExtendedKeyFormatException if any of the keys is not a valid
+     * account-level extended key.
+     */
+    public DerivationJob(List<String> extendedKeys, int chain, int start, int count)
+            throws ExtendedKeyFormatException {
+        if (start < 0 || count < 0 || (long) start + count - 1 > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Index range must lie within 0 to 2,147,483,647.");
+        }
+        this.extendedKeys = Collections.unmodifiableList(new ArrayList<>(extendedKeys));
+        this.keys = new ArrayList<>(extendedKeys.size());
+        for (int id = 0; id < extendedKeys.size(); id++) {
+            try {
+                keys.add(JobKey.parse(id, extendedKeys.get(id), chain));
+            } catch (ExtendedKeyFormatException ex) {
+                throw new ExtendedKeyFormatException("key " + id + ": " + ex.getMessage());
+            }
+        }
+        this.chain = chain;
+        this.start = start;
+        this.count = count;
+    }
+
+    /**
+     * Enables periodic checkpoints.
+     *
+     * @param file the checkpoint file, replaced atomically on every
+     * checkpoint.
+     * @param intervalMillis the minimum time between two checkpoints.
+     */
+    public void setCheckpoint(Path file, long intervalMillis) {
+        this.checkpointFile = file;
+        this.checkpointMillis = intervalMillis;
+    }
+
+    /**
+     * Restricts this job to one shard of the work. All shards of a job must
+     * use the same keys, range, shard count and block size.
+     *
+     * @param shard the shard to derive, from 0 to {@code shards - 1}.
+     * @param shards the total number of shards.
+     * @param blockSize the number of consecutive indexes of a key assigned to
+     * the same shard.
+     */
+    public void setShard(int shard, int shards, int blockSize) {
+        if (shards < 1 || shard < 0 || shard >= shards || blockSize < 1) {
+            throw new IllegalArgumentException("Shard must be k/N with 0 <= k < N and a positive block size.");
+        }
+        this.shard = shard;
+        this.shards = shards;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Restricts the output to addresses on a watch list. Addresses that are
+     * not on the list are never encoded.
+     *
+     * @param watchList the addresses to look for, or null to write every
+     * address.
+     * @throws IllegalArgumentException if the job writes a type whose
+     * addresses carry no hash to match against the list.
+     */
+    public void setWatchList(WatchList watchList) {
+        if (watchList != null && type != null && !type.isHashed()) {
+            throw new IllegalArgumentException("A watch list matches key hashes, which " + type
+                    + " addresses lack.");
+        }
+        this.watchList = watchList;
+    }
+
+    /**
+     * Runs the derive, hash and encode steps on their own threads, connected
+     * by lock-free rings, while the calling thread writes. The output is the
+     * same as without a pipeline.
+     *
+     * @param deriveThreads the number of threads deriving public keys.
+     * @param hashThreads the number of threads hashing public keys.
+     * @param encodeThreads the number of threads encoding addresses.
+     */
+    public void setPipeline(int deriveThreads, int hashThreads, int encodeThreads) {
+        this.pipeline = new Pipeline(deriveThreads, hashThreads, encodeThreads);
+    }
+
+    /**
+     * Re-derives a random sample of the results on a background thread with
+     * the BigInteger reference implementation, failing the job if any of
+     * them differs. Checkpoints wait for the samples before them to be
+     * verified.
+     *
+     * @param oneIn the sampling rate: on average one in this many indexes is
+     * verified, or 0 to verify nothing.
+     */
+    public void setVerification(int oneIn) {
+        if (oneIn < 0) {
+            throw new IllegalArgumentException("Sampling rate must not be negative.");
+        }
+        this.verifyOneIn = oneIn;
+    }
+
+    /**
+     * @return the number of results verified by the last run.
+     */
+    public long getVerifiedSamples() {
+        return verifiedSamples;
+    }
+
+    /**
+     * @return the background time the last run spent verifying, in
+     * nanoseconds.
+     */
+    public long getVerificationNanos() {
+        return verificationNanos;
+    }
+
+    /**
+     * Writes every key's addresses as the given type, whatever its version
+     * prefix implies. This is the only way to derive P2TR addresses, since
+     * BIP86 accounts use the plain {@code xpub} prefix.
+     *
+     * @param type the address type, or null for the type each key's version
+     * prefix implies.
+     * @throws IllegalArgumentException if a watch list is set and addresses
+     * of the type carry no hash to match it against.
+     */
+    public void setType(AddressType type) {
+        if (type != null && !type.isHashed() && watchList != null) {
+            throw new IllegalArgumentException("A watch list matches key hashes, which " + type
+                    + " addresses lack.");
+        }
+        this.type = type;
+    }
+
+    /**
+     * Writes every child as all three address types instead of the type its
+     * key's version prefix implies, deriving each child only once.
+     *
+     * @param allTypes true to write P2PKH, P2SH-P2WPKH and P2WPKH addresses.
+     */
+    public void setAllTypes(boolean allTypes) {
+        this.allTypes = allTypes;
+        duplicates.clear();
+        if (allTypes) {
+            Map<String, Integer> firstWithMaterial = new HashMap<>();
+            for (JobKey key : keys) {
+                Integer first = firstWithMaterial.putIfAbsent(Bytes.toHex(key.accountKey), key.id);
+                if (first != null) {
+                    duplicates.put(key.id, first);
+                }
+            }
+        }
+    }
+
+    /**
+     * Lists the keys skipped in all-types mode because an earlier key has the
+     * same public key and chain code under a different version prefix.
+     *
+     * @return the id of every skipped key, mapped to the id of the key whose
+     * addresses it would have repeated.
+     */
+    public Map<Integer, Integer> getDuplicateKeys() {
+        return Collections.unmodifiableMap(duplicates);
+    }
+
+    /**
+     * Identifies the work this job performs, so that a checkpoint is never
+     * applied to a different job.
+     *
+     * @return the hex SHA-256 of the job parameters and keys.
+     */
+    public String fingerprint() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(chain).append(' ').append(start).append(' ').append(count).append(' ')
+                .append(shard).append('/').append(shards).append(' ').append(blockSize);
+        if (allTypes) {
+            sb.append(" all");
+        } else if (type != null) {
+            sb.append(' ').append(type);
+        }
+        sb.append('\n');
+        for (String xkey : extendedKeys) {
+            sb.append(xkey).append('\n');
+        }
+        return Bytes.toHex(Hashes.sha256(sb.toString().getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    /**
+     * Creates an empty checkpoint for this job.
+     *
+     * @return a checkpoint recording that nothing has been written yet.
+     */
+    public Checkpoint newCheckpoint() {
+        return Checkpoint.fresh(fingerprint(), keys.size());
+    }
+
+    /**
+     * Derives every address not already covered by the checkpoint and writes
+     * it to the writer, or only those on the watch list if one is set,
+     * storing the checkpoint periodically and once more when finished.
+     *
+     * @param writer the destination of the addresses, positioned at the
+     * checkpoint's output length.
+     * @param checkpoint the progress to resume from; updated as addresses are
+     * written.
+     * @return the number of addresses derived.
+     * @throws IOException if the output or checkpoint cannot be written.
+     */
+    public long run(AddressWriter writer, Checkpoint checkpoint) throws IOException {
+        if (!checkpoint.getFingerprint().equals(fingerprint())) {
+            throw new IOException("checkpoint belongs to a different job.");
+        }
+        List<Segment> work = new ArrayList<>();
+        for (Segment segment : plan()) {
+            int from = Math.max(segment.first, checkpoint.getHighest(segment.key.id) + 1);
+            if (from <= segment.last) {
+                work.add(new Segment(segment.key, from, segment.last));
+            }
+        }
+        BatchWriter output = new BatchWriter(writer, checkpoint);
+        verifier = verifyOneIn > 0 ? new SampledVerifier(verifyOneIn, chain) : null;
+        try {
+            if (pipeline != null) {
+                pipeline.run(work, this::typesOf, watchList, output::write);
+            } else {
+                BatchHash160 hasher = new BatchHash160();
+                Batch batch = new Batch();
+                for (Segment segment : work) {
+                    for (long i = segment.first; i <= segment.last; i += Batch.CAPACITY) {
+                        batch.reset(segment.key, (int) i, (int) Math.min(Batch.CAPACITY, segment.last - i + 1));
+                        batch.derive();
+                        batch.hash(hasher);
+                        batch.encode(typesOf(segment.key), watchList);
+                        output.write(batch);
+                    }
+                }
+            }
+            if (checkpointFile != null) {
+                storeCheckpoint(writer, checkpoint);
+            } else {
+                writer.sync();
+            }
+            if (verifier != null) {
+                verifier.awaitVerified();
+            }
+        } finally {
+            if (verifier != null) {
+                verifier.close();
+                verifiedSamples = verifier.getSamples();
+                verificationNanos = verifier.getNanos();
+                verifier = null;
+            }
+        }
+        return output.derived;
+    }
+
+    private AddressType[] typesOf(JobKey key) {
+        if (allTypes) {
+            return new AddressType[]{AddressType.P2PKH, AddressType.P2SH_P2WPKH, AddressType.P2WPKH};
+        }
+        return new AddressType[]{type != null ? type : key.type};
+    }
+
+    /**
+     * Writes finished batches in order, recording each index in the
+     * checkpoint once all of its addresses are written and storing the
+     * checkpoint periodically.
+     */
+    private final class BatchWriter {
+
+        private final AddressWriter writer;
+        private final Checkpoint checkpoint;
+        private long derived;
+        private long lastCheckpoint = System.currentTimeMillis();
+
+        BatchWriter(AddressWriter writer, Checkpoint checkpoint) {
+            this.writer = writer;
+            this.checkpoint = checkpoint;
+        }
+
+        void write(Batch batch) throws IOException {
+            JobKey key = batch.key;
+            for (int j = 0; j < batch.count; j++) {
+                int index = batch.first + j;
+                byte[] pubKeyHash = null;
+                for (int t = 0; t < batch.types.length; t++) {
+                    String address = batch.address(j, t);
+                    if (address != null) {
+                        if (pubKeyHash == null) {
+                            pubKeyHash = batch.pubKeyHash(j);
+                        }
+                        writer.write(key.id, chain, index, pubKeyHash, address);
+                    }
+                }
+                if (verifier != null && verifier.sample()) {
+                    String[] addresses = new String[batch.types.length];
+                    for (int t = 0; t < addresses.length; t++) {
+                        addresses[t] = batch.address(j, t);
+                    }
+                    verifier.submit(new SampledVerifier.Sample(key, index, batch.pubKey(j), batch.pubKeyHash(j),
+                            batch.types, addresses));
+                }
+                checkpoint.setHighest(key.id, index);
+                derived++;
+                if (checkpointFile != null && (derived & 0xFF) == 0
+                        && System.currentTimeMillis() - lastCheckpoint >= checkpointMillis) {
+                    storeCheckpoint(writer, checkpoint);
+                    lastCheckpoint = System.currentTimeMillis();
+                }
+            }
+        }
+    }
+
+    /**
+     * Lists the segments assigned to this job's shard, in (key, index) order.
+     * Adjacent blocks of the same key are coalesced, so an unsharded job has
+     * a single segment per key.
+     */
+    private List<Segment> plan() {
+        List<Segment> segments = new ArrayList<>();
+        long end = (long) start + count;
+        long block = 0;
+        for (JobKey key : keys) {
+            if (duplicates.containsKey(key.id)) {
+                continue;
+            }
+            long runFirst = -1;
+            long runLast = -1;
+            for (long first = start; first < end; first += blockSize, block++) {
+                if (block % shards != shard) {
+                    continue;
+                }
+                long last = Math.min(first + blockSize, end) - 1;
+                if (runFirst >= 0 && runLast + 1 == first) {
+                    runLast = last;
+                } else {
+                    if (runFirst >= 0) {
+                        segments.add(new Segment(key, (int) runFirst, (int) runLast));
+                    }
+                    runFirst = first;
+                    runLast = last;
+                }
+            }
+            if (runFirst >= 0) {
+                segments.add(new Segment(key, (int) runFirst, (int) runLast));
+            }
+        }
+        return segments;
+    }
+
+    private void storeCheckpoint(AddressWriter writer, Checkpoint checkpoint) throws IOException {
+        if (verifier != null) {
+            verifier.awaitVerified();
+        }
+        checkpoint.setOutputLength(writer.sync());
+        checkpoint.store(checkpointFile);
+    }
+}
@@ -0,0 +1,80 @@
+package com.eawf.deriver.job;
+
+import com.eawf.deriver.store.Hash160Table;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Collects the output of a {@link DerivationJob} into off-heap
+ * {@link Hash160Table}s mapping each public key hash to its address index,
+ * for deduplication, lookups and joins without holding addresses on the
+ * heap. Every key and chain gets a table of its own, so the index a hash
+ * maps to is never one of another key. When the same hash is written more
+ * than once for a key and chain, as in all-types jobs, the first index is
+ * kept.
+ *
+ * <pre>{@code
+ * Hash160TableWriter tables = new Hash160TableWriter(count);
+ * job.run(tables, job.newCheckpoint());
+ * Hash160Table receive = tables.getTable(0, 0);
+ * }</pre>
+ *
+ * @author Carson Mullins
+ */
+public class Hash160TableWriter implements AddressWriter {
+
+    private final long expectedEntries;
+    private final Map<Long, Hash160Table> tables = new HashMap<>();
+
+    /**
+     * @param expectedEntries the number of addresses each key and chain is
+     * expected to yield, which every table is sized for up front.
+     */
+    public Hash160TableWriter(long expectedEntries) {
+        this.expectedEntries = expectedEntries;
+    }
+
+    /**
+     * @param keyId the position of the extended key in the job's key list.
+     * @param chain the chain index.
+     * @return the table of the given key and chain, or null if no address of
+     * it has been written.
+     */
+    public Hash160Table getTable(int keyId, int chain) {
+        return tables.get(slot(keyId, chain));
+    }
+
+    @Override
+    public void write(int keyId, int chain, int index, byte[] pubKeyHash, String address) {
+        tables.computeIfAbsent(slot(keyId, chain), s -> new Hash160Table(expectedEntries))
+                .putIfAbsent(pubKeyHash, 0, index);
+    }
+
+    /**
+     * The tables live in memory only, so there is nothing to flush.
+     *
+     * @return always 0.
+     */
+    @Override
+    public long sync() {
+        return 0;
+    }
+
+    /**
+     * Drops every table, since they may hold addresses of the failed run.
+     *
+     * @param length ignored; the tables have no durable length.
+     */
+    @Override
+    public void abort(long length) {
+        tables.clear();
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private static long slot(int keyId, int chain) {
+        return (long) keyId << 32 | (chain & 0xFFFFFFFFL);
+    }
+}
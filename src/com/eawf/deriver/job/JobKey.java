@@ -0,0 +1,52 @@
+package com.eawf.deriver.job;
+
+import com.eawf.deriver.bitcoin.AddressType;
+import com.eawf.deriver.bitcoin.KeyNode;
+import com.eawf.deriver.util.ExtendedKeyFormatException;
+import com.eawf.deriver.util.Keys;
+import java.util.Arrays;
+
+/**
+ * An account-level extended key of a job, already derived down to the chain
+ * the job walks and prepared for deriving its addresses.
+ *
+ * @author Carson Mullins
+ */
+final class JobKey {
+
+    final int id;
+    final AddressType type;
+    final KeyNode node;
+    /**
+     * The account-level public key in the 65-byte form of
+     * {@link com.eawf.deriver.bitcoin.CKD#CKDpub(byte[], int)}, also for a
+     * private key.
+     */
+    final byte[] accountKey;
+
+    private JobKey(int id, AddressType type, KeyNode node, byte[] accountKey) {
+        this.id = id;
+        this.type = type;
+        this.node = node;
+        this.accountKey = accountKey;
+    }
+
+    /**
+     * Validates an account-level extended public or private key and derives
+     * its chain level extended key.
+     *
+     * @param id the position of the key in the job's key list.
+     * @param xkey_ser the serialized extended key.
+     * @param chain the chain index to derive (0 for receive, 1 for change).
+     * @return the prepared key.
+     * @throws ExtendedKeyFormatException if the key is not a valid
+     * account-level extended key.
+     */
+    static JobKey parse(int id, String xkey_ser, int chain) throws ExtendedKeyFormatException {
+        byte[] xkey_bytes = Keys.validateExtendedKey(xkey_ser);
+        byte[] version = Arrays.copyOfRange(xkey_bytes, 0, 4);
+        KeyNode account = Keys.toKeyNode(xkey_bytes);
+        return new JobKey(id, AddressType.forVersion(version), account.deriveChild(chain),
+                account.toPublic().toExtendedKey());
+    }
+}
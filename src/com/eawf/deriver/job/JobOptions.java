@@ -0,0 +1,197 @@
+package com.eawf.deriver.job;
+
+import com.eawf.deriver.bitcoin.AddressType;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Command line options of the {@code derive} command.
+ *
+ * @author Carson Mullins
+ */
+final class JobOptions {
+
+    static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: derive --keys FILE --count N [options]",
+            "  --keys FILE                 account-level extended public or private keys, one per line",
+            "  --count N                   number of address indexes to derive per key",
+            "  --start N                   first address index (default 0)",
+            "  --chain N                   0 for receive, 1 for change addresses (default 0)",
+            "  --out FILE                  output file (default standard output)",
+            "  --format FORMAT             text (default) or pgcopy, PostgreSQL binary COPY rows",
+            "  --gzip THREADS              gzip the text output on THREADS threads",
+            "  --checkpoint FILE           periodically record progress in FILE",
+            "  --checkpoint-interval SECS  seconds between checkpoints (default 30)",
+            "  --resume                    continue from the checkpoint, if it exists",
+            "  --watch FILE                write only addresses on this watch list",
+            "  --all-types                 write P2PKH, P2SH-P2WPKH and P2WPKH addresses of every key",
+            "  --type TYPE                 write TYPE (P2PKH, P2SH-P2WPKH, P2WPKH or P2TR) for every key",
+            "  --shard K/N                 derive only shard K (0-based) of N",
+            "  --shard-block N             indexes per shard block (default 10000)",
+            "  --pipeline D,H,E            run derive, hash and encode on D, H and E threads",
+            "  --verify N                  check 1 in N results against the reference implementation",
+            "",
+            "Usage: merge --out FILE SHARD_FILE...",
+            "  merges the text outputs of all shards of a job into the single-run order");
+
+    Path keysFile;
+    Path outFile;
+    Path checkpointFile;
+    Path watchFile;
+    long checkpointSeconds = 30;
+    boolean resume;
+    boolean pgCopy;
+    int gzipThreads;
+    boolean allTypes;
+    AddressType type;
+    int chain;
+    int start;
+    int count = -1;
+    int shard = 0;
+    int shards = 1;
+    int shardBlock = DerivationJob.DEFAULT_BLOCK_SIZE;
+    int[] pipeline;
+    int verifyOneIn;
+
+    private JobOptions() {
+    }
+
+    /**
+     * Parses the arguments following the {@code derive} command.
+     *
+     * @param args the arguments.
+     * @param from the position of the first option in {@code args}.
+     * @return the parsed options.
+     * @throws IllegalArgumentException if the options are invalid.
+     */
+    static JobOptions parse(String[] args, int from) {
+        JobOptions opts = new JobOptions();
+        for (int i = from; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--keys":
+                    opts.keysFile = Paths.get(value(args, ++i, arg));
+                    break;
+                case "--out":
+                    opts.outFile = Paths.get(value(args, ++i, arg));
+                    break;
+                case "--format":
+                    String format = value(args, ++i, arg);
+                    if (!format.equals("text") && !format.equals("pgcopy")) {
+                        throw new IllegalArgumentException("--format must be text or pgcopy.");
+                    }
+                    opts.pgCopy = format.equals("pgcopy");
+                    break;
+                case "--gzip":
+                    opts.gzipThreads = (int) number(args, ++i, arg);
+                    if (opts.gzipThreads < 1) {
+                        throw new IllegalArgumentException("--gzip needs at least one thread.");
+                    }
+                    break;
+                case "--checkpoint":
+                    opts.checkpointFile = Paths.get(value(args, ++i, arg));
+                    break;
+                case "--checkpoint-interval":
+                    opts.checkpointSeconds = number(args, ++i, arg);
+                    break;
+                case "--watch":
+                    opts.watchFile = Paths.get(value(args, ++i, arg));
+                    break;
+                case "--resume":
+                    opts.resume = true;
+                    break;
+                case "--all-types":
+                    opts.allTypes = true;
+                    break;
+                case "--type":
+                    opts.type = AddressType.forLabel(value(args, ++i, arg));
+                    break;
+                case "--chain":
+                    opts.chain = (int) number(args, ++i, arg);
+                    break;
+                case "--start":
+                    opts.start = (int) number(args, ++i, arg);
+                    break;
+                case "--count":
+                    opts.count = (int) number(args, ++i, arg);
+                    break;
+                case "--shard":
+                    String[] parts = value(args, ++i, arg).split("/");
+                    if (parts.length != 2) {
+                        throw new IllegalArgumentException("--shard must be given as K/N.");
+                    }
+                    opts.shard = (int) number(parts, 0, arg);
+                    opts.shards = (int) number(parts, 1, arg);
+                    break;
+                case "--pipeline":
+                    String[] counts = value(args, ++i, arg).split(",");
+                    if (counts.length != 3) {
+                        throw new IllegalArgumentException("--pipeline must be given as D,H,E.");
+                    }
+                    opts.pipeline = new int[3];
+                    for (int c = 0; c < 3; c++) {
+                        opts.pipeline[c] = (int) number(counts, c, arg);
+                        if (opts.pipeline[c] < 1) {
+                            throw new IllegalArgumentException("--pipeline thread counts must be positive.");
+                        }
+                    }
+                    break;
+                case "--verify":
+                    opts.verifyOneIn = (int) number(args, ++i, arg);
+                    break;
+                case "--shard-block":
+                    opts.shardBlock = (int) number(args, ++i, arg);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+        if (opts.keysFile == null || opts.count < 0) {
+            throw new IllegalArgumentException("--keys and --count are required.");
+        }
+        if (opts.chain != 0 && opts.chain != 1) {
+            throw new IllegalArgumentException("--chain must be 0 or 1.");
+        }
+        if ((long) opts.start + opts.count - 1 > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Index must be less than 2,147,483,648.");
+        }
+        if (opts.shards < 1 || opts.shard >= opts.shards || opts.shardBlock < 1) {
+            throw new IllegalArgumentException("--shard must satisfy 0 <= K < N and --shard-block must be positive.");
+        }
+        if (opts.pgCopy && opts.gzipThreads > 0) {
+            throw new IllegalArgumentException("--gzip applies to text output only.");
+        }
+        if (opts.allTypes && opts.type != null) {
+            throw new IllegalArgumentException("--all-types and --type cannot be combined.");
+        }
+        if (opts.watchFile != null && opts.type != null && !opts.type.isHashed()) {
+            throw new IllegalArgumentException("--watch matches key hashes, which " + opts.type + " addresses lack.");
+        }
+        if (opts.checkpointFile != null && opts.outFile == null) {
+            throw new IllegalArgumentException("--checkpoint requires --out.");
+        }
+        if (opts.resume && opts.checkpointFile == null) {
+            throw new IllegalArgumentException("--resume requires --checkpoint.");
+        }
+        return opts;
+    }
+
+    private static String value(String[] args, int i, String option) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException(option + " requires a value.");
+        }
+        return args[i];
+    }
+
+    private static long number(String[] args, int i, String option) {
+        try {
+            long number = Long.parseLong(value(args, i, option));
+            if (number < 0 || number > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(option + " must be between 0 and 2,147,483,647.");
+            }
+            return number;
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(option + " must be a whole number.");
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.eawf.deriver.job;
+
+import com.eawf.deriver.util.ExtendedKeyFormatException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Entry point of the non-interactive commands.
+ *
+ * @author Carson Mullins
+ */
+public final class JobRunner {
+
+    private JobRunner() {
+    } // Non-instantiable
+
+    /**
+     * Runs the command named by the first argument.
+     *
+     * @param args the command line arguments.
+     * @return the process exit status: 0 on success, 1 if the job failed and
+     * 2 if the arguments were invalid.
+     */
+    public static int run(String[] args) {
+        if (args[0].equals("merge")) {
+            return merge(args);
+        }
+        if (!args[0].equals("derive")) {
+            System.err.println("Unknown command " + args[0]);
+            System.err.println(JobOptions.USAGE);
+            return 2;
+        }
+        JobOptions opts;
+        try {
+            opts = JobOptions.parse(args, 1);
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.err.println(JobOptions.USAGE);
+            return 2;
+        }
+        try {
+            return derive(opts);
+        } catch (IOException | ExtendedKeyFormatException ex) {
+            System.err.println(ex.getMessage());
+            return 1;
+        }
+    }
+
+    private static int derive(JobOptions opts) throws IOException, ExtendedKeyFormatException {
+        DerivationJob job = new DerivationJob(readKeys(opts.keysFile), opts.chain, opts.start, opts.count);
+        job.setShard(opts.shard, opts.shards, opts.shardBlock);
+        job.setAllTypes(opts.allTypes);
+        job.setType(opts.type);
+        job.setVerification(opts.verifyOneIn);
+        if (opts.pipeline != null) {
+            job.setPipeline(opts.pipeline[0], opts.pipeline[1], opts.pipeline[2]);
+        }
+        for (Map.Entry<Integer, Integer> duplicate : job.getDuplicateKeys().entrySet()) {
+            System.err.println("Skipping key " + duplicate.getKey() + ": same key material as key "
+                    + duplicate.getValue() + ".");
+        }
+        Checkpoint checkpoint;
+        if (opts.resume && Files.exists(opts.checkpointFile)) {
+            checkpoint = Checkpoint.load(opts.checkpointFile);
+            if (!checkpoint.getFingerprint().equals(job.fingerprint())) {
+                System.err.println(opts.checkpointFile + " was written by a job with different keys or range.");
+                return 1;
+            }
+        } else {
+            checkpoint = job.newCheckpoint();
+        }
+        if (opts.watchFile != null) {
+            WatchList watchList = WatchList.load(opts.watchFile);
+            System.err.println("Watching " + watchList.size() + " entries (" + watchList.getSkipped()
+                    + " unsupported addresses ignored).");
+            job.setWatchList(watchList);
+        }
+        if (opts.checkpointFile != null) {
+            job.setCheckpoint(opts.checkpointFile, opts.checkpointSeconds * 1000);
+        }
+        long begin = System.nanoTime();
+        long derived;
+        try (AddressWriter writer = openWriter(opts, checkpoint.getOutputLength())) {
+            try {
+                derived = job.run(writer, checkpoint);
+            } catch (VerificationException ex) {
+                // Never finish output that may hold a wrong address
+                writer.abort(checkpoint.getOutputLength());
+                throw new IOException(ex.getMessage() + ". " + abandoned(opts, checkpoint.getOutputLength()), ex);
+            }
+        }
+        long nanos = System.nanoTime() - begin;
+        System.err.println("Derived " + derived + " addresses in " + nanos / 1_000_000 + " ms.");
+        if (opts.verifyOneIn > 0) {
+            System.err.printf("Verified %d samples against the reference in %d ms of background time"
+                    + " (%.1f%% of the run).%n", job.getVerifiedSamples(), job.getVerificationNanos() / 1_000_000,
+                    100.0 * job.getVerificationNanos() / Math.max(1, nanos));
+        }
+        return 0;
+    }
+
+    /**
+     * Describes what became of the output of a job that failed
+     * verification, removing an output file no checkpoint refers to.
+     */
+    private static String abandoned(JobOptions opts, long length) throws IOException {
+        if (opts.outFile == null) {
+            return "The output already written is incomplete and must be discarded.";
+        }
+        if (opts.checkpointFile == null || length == 0) {
+            Files.deleteIfExists(opts.outFile);
+            return "Deleted " + opts.outFile + ".";
+        }
+        return "Truncated " + opts.outFile + " to its last checkpoint (" + length + " bytes).";
+    }
+
+    private static AddressWriter openWriter(JobOptions opts, long offset) throws IOException {
+        if (opts.pgCopy) {
+            return opts.outFile == null
+                    ? new PgCopyAddressWriter(System.out)
+                    : new PgCopyAddressWriter(opts.outFile, offset);
+        }
+        return opts.outFile == null
+                ? new TextAddressWriter(System.out, opts.gzipThreads)
+                : new TextAddressWriter(opts.outFile, offset, opts.gzipThreads);
+    }
+
+    private static int merge(String[] args) {
+        if (args.length < 4 || !args[1].equals("--out")) {
+            System.err.println(JobOptions.USAGE);
+            return 2;
+        }
+        List<Path> inputs = new ArrayList<>();
+        for (int i = 3; i < args.length; i++) {
+            inputs.add(Paths.get(args[i]));
+        }
+        try {
+            long lines = ShardMerger.merge(inputs, Paths.get(args[2]));
+            System.err.println("Merged " + lines + " lines from " + inputs.size() + " files.");
+            return 0;
+        } catch (IOException ex) {
+            System.err.println(ex.getMessage());
+            return 1;
+        }
+    }
+
+    /**
+     * Reads extended keys from a file, one per line, ignoring blank lines and
+     * lines starting with {@code #}.
+     */
+    private static List<String> readKeys(Path file) throws IOException {
+        List<String> keys = new ArrayList<>();
+        for (String line : Files.readAllLines(file)) {
+            line = line.trim();
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                keys.add(line);
+            }
+        }
+        return keys;
+    }
+}
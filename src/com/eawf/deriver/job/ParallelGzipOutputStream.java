@@ -0,0 +1,218 @@
+package com.eawf.deriver.job;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses a stream on several threads, in the manner of {@code pigz}.
+ * The data is cut into blocks that are deflated independently, and each
+ * block is written as a complete gzip member, in order. Any gzip
+ * decompressor reads the concatenated members as a single stream.
+ * <p>
+ * {@link #flush()} ends the current block early, so everything written
+ * before it can be decompressed from the output alone, and the output can
+ * later be truncated to that point and appended to.
+ *
+ * @author Carson Mullins
+ */
+final class ParallelGzipOutputStream extends OutputStream {
+
+    /**
+     * The uncompressed size of a block, except the last before a flush.
+     */
+    static final int BLOCK_SIZE = 1 << 17;
+
+    private static final byte[] HEADER = {
+        0x1F, (byte) 0x8B, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xFF};
+    private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+    private final OutputStream out;
+    private final ExecutorService executor;
+    private final int maxPending;
+    private final int level;
+    // Idle deflaters, at most one per thread, ended on close
+    private final ConcurrentLinkedQueue<Deflater> deflaters = new ConcurrentLinkedQueue<>();
+    private final ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+    private byte[] block = new byte[BLOCK_SIZE];
+    private int blockLen;
+
+    /**
+     * @param out the destination of the gzip members.
+     * @param threads the number of compressing threads.
+     * @param level the compression level, from 1 to 9.
+     */
+    ParallelGzipOutputStream(OutputStream out, int threads, int level) {
+        this.out = out;
+        int pool = POOL_COUNT.incrementAndGet();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "gzip-" + pool + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Enough blocks in flight to keep every thread busy while the
+        // oldest is written
+        this.maxPending = 2 * threads;
+        this.level = level;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        block[blockLen++] = (byte) b;
+        if (blockLen == BLOCK_SIZE) {
+            submit();
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            int n = Math.min(len, BLOCK_SIZE - blockLen);
+            System.arraycopy(b, off, block, blockLen, n);
+            blockLen += n;
+            off += n;
+            len -= n;
+            if (blockLen == BLOCK_SIZE) {
+                submit();
+            }
+        }
+    }
+
+    /**
+     * Compresses the current block, even if it is not full, and waits until
+     * every block is written to the underlying stream, which is then
+     * flushed.
+     *
+     * @throws IOException if a block cannot be compressed or written.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (blockLen > 0) {
+            submit();
+        }
+        while (!pending.isEmpty()) {
+            writeOldest();
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes every remaining block, stops the compressing threads, releases
+     * their deflaters and closes the underlying stream.
+     *
+     * @throws IOException if a block cannot be compressed or written.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            try {
+                shutdown();
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * Discards the blocks not yet written and stops the compressing threads,
+     * leaving the underlying stream open and without a final member.
+     *
+     * @throws IOException if interrupted while stopping the threads.
+     */
+    void abandon() throws IOException {
+        for (Future<byte[]> block : pending) {
+            block.cancel(true);
+        }
+        pending.clear();
+        blockLen = 0;
+        shutdown();
+    }
+
+    /**
+     * Stops the compressing threads and releases their deflaters, once no
+     * task can take one any more.
+     */
+    private void shutdown() throws IOException {
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while stopping the compressing threads.");
+        } finally {
+            for (Deflater deflater = deflaters.poll(); deflater != null; deflater = deflaters.poll()) {
+                deflater.end();
+            }
+        }
+    }
+
+    private void submit() throws IOException {
+        byte[] data = block;
+        int len = blockLen;
+        pending.add(executor.submit(() -> compress(data, len)));
+        block = new byte[BLOCK_SIZE];
+        blockLen = 0;
+        while (pending.size() > maxPending) {
+            writeOldest();
+        }
+    }
+
+    private void writeOldest() throws IOException {
+        try {
+            out.write(pending.poll().get());
+        } catch (ExecutionException ex) {
+            throw new IOException("Compression failed.", ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while compressing.");
+        }
+    }
+
+    /**
+     * Deflates one block into a complete gzip member.
+     */
+    private byte[] compress(byte[] data, int len) {
+        Deflater deflater = deflaters.poll();
+        if (deflater == null) {
+            deflater = new Deflater(level, true);
+        }
+        ByteArrayOutputStream member = new ByteArrayOutputStream(len / 4 + 64);
+        member.write(HEADER, 0, HEADER.length);
+        try {
+            deflater.setInput(data, 0, len);
+            deflater.finish();
+            byte[] buf = new byte[1 << 14];
+            while (!deflater.finished()) {
+                member.write(buf, 0, deflater.deflate(buf));
+            }
+        } finally {
+            deflater.reset();
+            deflaters.add(deflater);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, len);
+        writeIntLE(member, (int) crc.getValue());
+        writeIntLE(member, len);
+        return member.toByteArray();
+    }
+
+    private static void writeIntLE(ByteArrayOutputStream out, int v) {
+        out.write(v);
+        out.write(v >>> 8);
+        out.write(v >>> 16);
+        out.write(v >>> 24);
+    }
+}
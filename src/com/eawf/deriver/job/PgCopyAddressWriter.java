@@ -0,0 +1,182 @@
+package com.eawf.deriver.job;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Writes addresses in the binary format of PostgreSQL's {@code COPY}, one
+ * row of {@code (keyId int4, chain int4, index int4, hash160 bytea,
+ * address text)} per address, so that a pool can be loaded with
+ * {@code COPY ... FROM ... WITH (FORMAT binary)} without the server parsing
+ * any text.
+ * <p>
+ * The header is written when a file is started and the trailer only on
+ * {@link #close()}. {@link #sync()} never counts the trailer, so a resumed
+ * job truncates it away, appends its rows and writes it again.
+ *
+ * @author Carson Mullins
+ */
+public class PgCopyAddressWriter implements AddressWriter {
+
+    private static final byte[] SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+    private static final short FIELDS = 5;
+    private static final int BUFFER_SIZE = 1 << 16;
+    // The largest row: 2-byte field count, five 4-byte lengths, three int4s,
+    // a 20-byte hash and an address of at most 90 characters
+    private static final int MAX_ROW = 2 + 5 * 4 + 3 * 4 + 20 + 90;
+
+    private final FileChannel file;
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private long written;
+    private boolean closed;
+
+    /**
+     * Opens the given file for writing, discarding anything past
+     * {@code offset}. An offset of 0 starts a new file with the COPY header.
+     *
+     * @param file the output file.
+     * @param offset the number of bytes of the existing file to keep.
+     * @throws IOException if the file cannot be opened or is shorter than
+     * {@code offset}.
+     */
+    public PgCopyAddressWriter(Path file, long offset) throws IOException {
+        this.file = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        if (this.file.size() < offset) {
+            this.file.close();
+            throw new IOException(file + " is shorter than its checkpoint (" + offset + " bytes).");
+        }
+        if (offset > 0) {
+            // Refuse to append rows to a file of another format
+            ByteBuffer signature = ByteBuffer.allocate(SIGNATURE.length);
+            int read;
+            do {
+                read = this.file.read(signature, signature.position());
+            } while (read > 0 && signature.hasRemaining());
+            if (!Arrays.equals(signature.array(), SIGNATURE)) {
+                this.file.close();
+                throw new IOException(file + " is not a PostgreSQL binary COPY file.");
+            }
+        }
+        this.file.truncate(offset);
+        this.file.position(offset);
+        this.channel = this.file;
+        this.written = offset;
+        if (offset == 0) {
+            writeHeader();
+        }
+    }
+
+    /**
+     * Writes to an already open stream, such as {@code System.out}. The
+     * stream is flushed but never forced to disk.
+     *
+     * @param stream the stream to write to.
+     */
+    public PgCopyAddressWriter(OutputStream stream) {
+        this.file = null;
+        this.channel = Channels.newChannel(stream);
+        writeHeader();
+    }
+
+    private void writeHeader() {
+        buffer.put(SIGNATURE);
+        // Flags, then the length of the header extension
+        buffer.putInt(0).putInt(0);
+        written += SIGNATURE.length + 8;
+    }
+
+    @Override
+    public void write(int keyId, int chain, int index, byte[] pubKeyHash, String address) throws IOException {
+        if (buffer.remaining() < MAX_ROW) {
+            drain();
+        }
+        int start = buffer.position();
+        buffer.putShort(FIELDS);
+        buffer.putInt(4).putInt(keyId);
+        buffer.putInt(4).putInt(chain);
+        buffer.putInt(4).putInt(index);
+        buffer.putInt(pubKeyHash.length).put(pubKeyHash);
+        // Addresses are plain ASCII, so each char is one UTF-8 byte
+        int len = address.length();
+        buffer.putInt(len);
+        for (int i = 0; i < len; i++) {
+            buffer.put((byte) address.charAt(i));
+        }
+        written += buffer.position() - start;
+    }
+
+    @Override
+    public long sync() throws IOException {
+        drain();
+        if (file != null) {
+            file.force(false);
+        }
+        return written;
+    }
+
+    /**
+     * Discards the buffered rows and truncates an output file without
+     * writing the trailer, so that the file is not a complete COPY stream
+     * unless it is resumed.
+     *
+     * @param length the number of bytes of an output file to keep.
+     * @throws IOException if the output file cannot be truncated.
+     */
+    @Override
+    public void abort(long length) throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        buffer.clear();
+        if (file != null) {
+            try {
+                file.truncate(length);
+                file.force(false);
+            } finally {
+                file.close();
+            }
+        }
+    }
+
+    /**
+     * Writes the trailer and closes the output. The trailer is not counted
+     * by {@link #sync()}.
+     *
+     * @throws IOException if the output cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            sync();
+            buffer.putShort((short) -1);
+            drain();
+            if (file != null) {
+                file.force(false);
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,221 @@
+package com.eawf.deriver.job;
+
+import com.eawf.deriver.bitcoin.AddressType;
+import com.eawf.deriver.util.BatchHash160;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+/**
+ * Runs the derive, hash and encode steps of a job on separate groups of
+ * threads, handing batches from stage to stage through single-producer,
+ * single-consumer rings, while the calling thread writes them.
+ * <p>
+ * Batches are numbered in job order and batch {@code q} is handled by thread
+ * {@code q % n} of a stage with {@code n} threads. Every pair of threads in
+ * adjacent stages has a ring of its own, which carries that pair's batches in
+ * increasing order, so each thread takes its next batch from a known ring and
+ * the writer receives all batches in job order without any reordering
+ * buffer. Each derive thread owns a fixed pool of batches that the writer
+ * hands back once written, which bounds the memory in flight and makes the
+ * rings impossible to overfill.
+ *
+ * @author Carson Mullins
+ */
+final class Pipeline {
+
+    /**
+     * Consumes finished batches on the calling thread.
+     */
+    interface Sink {
+
+        void accept(Batch batch) throws IOException;
+    }
+
+    private static final int BATCHES_PER_DERIVE_THREAD = 4;
+
+    private final int deriveThreads;
+    private final int hashThreads;
+    private final int encodeThreads;
+    private volatile Throwable failure;
+    private final BooleanSupplier aborted = () -> failure != null;
+
+    /**
+     * @param deriveThreads the number of threads deriving public keys.
+     * @param hashThreads the number of threads hashing public keys.
+     * @param encodeThreads the number of threads encoding addresses.
+     */
+    Pipeline(int deriveThreads, int hashThreads, int encodeThreads) {
+        if (deriveThreads < 1 || hashThreads < 1 || encodeThreads < 1) {
+            throw new IllegalArgumentException("Every stage needs at least one thread.");
+        }
+        this.deriveThreads = deriveThreads;
+        this.hashThreads = hashThreads;
+        this.encodeThreads = encodeThreads;
+    }
+
+    /**
+     * Derives every index of the given segments and hands the batches to the
+     * sink in order.
+     *
+     * @param work the segments to derive, in job order.
+     * @param types the address types to encode for a key.
+     * @param watchList the addresses to encode, or null for all.
+     * @param sink the consumer of the finished batches.
+     * @throws IOException if the sink fails, or wrapping the failure of a
+     * stage.
+     */
+    void run(List<Segment> work, Function<JobKey, AddressType[]> types, WatchList watchList, Sink sink)
+            throws IOException {
+        long total = 0;
+        for (Segment segment : work) {
+            total += ((long) segment.last - segment.first) / Batch.CAPACITY + 1;
+        }
+        int inFlight = deriveThreads * BATCHES_PER_DERIVE_THREAD;
+        List<SpscRing<Batch>> free = new ArrayList<>();
+        for (int d = 0; d < deriveThreads; d++) {
+            SpscRing<Batch> ring = new SpscRing<>(BATCHES_PER_DERIVE_THREAD);
+            for (int i = 0; i < BATCHES_PER_DERIVE_THREAD; i++) {
+                putNow(ring, new Batch());
+            }
+            free.add(ring);
+        }
+        SpscRing<Batch>[][] derived = rings(deriveThreads, hashThreads, inFlight);
+        SpscRing<Batch>[][] hashed = rings(hashThreads, encodeThreads, inFlight);
+        SpscRing<Batch>[][] encoded = rings(encodeThreads, 1, inFlight);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int d = 0; d < deriveThreads; d++) {
+            final int self = d;
+            threads.add(stage("derive-" + d, () -> {
+                long seq = 0;
+                for (Segment segment : work) {
+                    for (long i = segment.first; i <= segment.last; i += Batch.CAPACITY, seq++) {
+                        if (seq % deriveThreads != self) {
+                            continue;
+                        }
+                        Batch batch = free.get(self).take(aborted);
+                        batch.reset(segment.key, (int) i, (int) Math.min(Batch.CAPACITY, segment.last - i + 1));
+                        batch.derive();
+                        derived[self][(int) (seq % hashThreads)].put(batch, aborted);
+                    }
+                }
+            }));
+        }
+        final long batches = total;
+        for (int h = 0; h < hashThreads; h++) {
+            final int self = h;
+            threads.add(stage("hash-" + h, () -> {
+                BatchHash160 hasher = new BatchHash160();
+                for (long q = self; q < batches; q += hashThreads) {
+                    Batch batch = derived[(int) (q % deriveThreads)][self].take(aborted);
+                    batch.hash(hasher);
+                    hashed[self][(int) (q % encodeThreads)].put(batch, aborted);
+                }
+            }));
+        }
+        for (int e = 0; e < encodeThreads; e++) {
+            final int self = e;
+            threads.add(stage("encode-" + e, () -> {
+                for (long q = self; q < batches; q += encodeThreads) {
+                    Batch batch = hashed[(int) (q % hashThreads)][self].take(aborted);
+                    batch.encode(types.apply(batch.key), watchList);
+                    encoded[self][0].put(batch, aborted);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        try {
+            for (long q = 0; q < batches; q++) {
+                Batch batch = encoded[(int) (q % encodeThreads)][0].take(aborted);
+                sink.accept(batch);
+                free.get((int) (q % deriveThreads)).put(batch, aborted);
+            }
+        } catch (InterruptedException ex) {
+            // A stage failed; its error is reported below
+        } catch (IOException | RuntimeException | Error ex) {
+            fail(ex);
+            throw ex;
+        } finally {
+            join(threads);
+        }
+        Throwable cause = failure;
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        if (cause != null) {
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * A body of a stage thread, which may be abandoned while waiting.
+     */
+    private interface StageBody {
+
+        void run() throws InterruptedException;
+    }
+
+    private Thread stage(String name, StageBody body) {
+        Thread thread = new Thread(() -> {
+            try {
+                body.run();
+            } catch (InterruptedException ex) {
+                // Another stage failed first
+            } catch (Throwable t) {
+                fail(t);
+            }
+        }, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private synchronized void fail(Throwable t) {
+        if (failure == null) {
+            failure = t;
+        }
+    }
+
+    private void join(List<Thread> threads) {
+        boolean interrupted = false;
+        for (Thread thread : threads) {
+            while (thread.isAlive()) {
+                try {
+                    thread.join();
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                    fail(ex);
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static SpscRing<Batch>[][] rings(int producers, int consumers, int capacity) {
+        SpscRing<Batch>[][] rings = new SpscRing[producers][consumers];
+        for (int p = 0; p < producers; p++) {
+            for (int c = 0; c < consumers; c++) {
+                rings[p][c] = new SpscRing<>(capacity);
+            }
+        }
+        return rings;
+    }
+
+    private static void putNow(SpscRing<Batch> ring, Batch batch) {
+        try {
+            ring.put(batch, () -> false);
+        } catch (InterruptedException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.eawf.deriver.job;
+
+import com.eawf.deriver.bitcoin.AddressType;
+import com.eawf.deriver.bitcoin.ReferenceCKD;
+import com.eawf.deriver.util.Bytes;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Re-derives a random sample of a job's results through {@link ReferenceCKD}
+ * on a background thread and records the first disagreement. The job checks
+ * for a failure whenever it submits a sample and waits for every sample to
+ * be verified before storing a checkpoint, so a checkpoint never covers an
+ * address that failed verification.
+ * <p>
+ * When the reference falls behind, submitting blocks, keeping the sampling
+ * rate exact at the cost of throughput.
+ *
+ * @author Carson Mullins
+ */
+final class SampledVerifier implements AutoCloseable {
+
+    private static final int QUEUE_LEN = 1024;
+    private static final Sample END = new Sample(null, 0, null, null, null, null);
+
+    private final int oneIn;
+    private final int chain;
+    private final SplittableRandom random = new SplittableRandom();
+    private final BlockingQueue<Sample> queue = new ArrayBlockingQueue<>(QUEUE_LEN);
+    private final Map<Integer, byte[]> chainKeys = new HashMap<>();
+    private final Thread thread;
+    private long pending;
+    private volatile String failure;
+    private long samples;
+    private long nanos;
+
+    /**
+     * Starts the verifier thread.
+     *
+     * @param oneIn the sampling rate: on average one in this many indexes is
+     * verified.
+     * @param chain the chain the job derives.
+     */
+    SampledVerifier(int oneIn, int chain) {
+        this.oneIn = oneIn;
+        this.chain = chain;
+        this.thread = new Thread(this::verifyAll, "verifier");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @return true if the next index should be verified.
+     */
+    boolean sample() {
+        return oneIn == 1 || random.nextInt(oneIn) == 0;
+    }
+
+    /**
+     * Queues a result for verification.
+     *
+     * @param sample the result derived by the fast engines.
+     * @throws VerificationException if an earlier sample failed
+     * verification.
+     * @throws IOException if interrupted while waiting for room in the
+     * queue.
+     */
+    void submit(Sample sample) throws IOException {
+        check();
+        synchronized (this) {
+            pending++;
+        }
+        try {
+            queue.put(sample);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while queueing a verification sample.");
+        }
+    }
+
+    /**
+     * Waits until every queued sample has been verified.
+     *
+     * @throws VerificationException if a sample failed verification.
+     * @throws IOException if interrupted while waiting.
+     */
+    void awaitVerified() throws IOException {
+        synchronized (this) {
+            while (pending > 0 && failure == null) {
+                try {
+                    wait();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for verification.");
+                }
+            }
+        }
+        check();
+    }
+
+    /**
+     * @return the number of samples verified.
+     */
+    long getSamples() {
+        return samples;
+    }
+
+    /**
+     * @return the time the verifier thread spent verifying, in nanoseconds.
+     */
+    long getNanos() {
+        return nanos;
+    }
+
+    /**
+     * Stops the verifier thread once the queued samples are verified.
+     */
+    @Override
+    public void close() {
+        try {
+            queue.put(END);
+            thread.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void check() throws IOException {
+        if (failure != null) {
+            throw new VerificationException(failure);
+        }
+    }
+
+    private void verifyAll() {
+        try {
+            for (Sample sample = queue.take(); sample != END; sample = queue.take()) {
+                if (failure == null) {
+                    long begin = System.nanoTime();
+                    String mismatch;
+                    try {
+                        mismatch = verify(sample);
+                    } catch (RuntimeException ex) {
+                        mismatch = "reference derivation failed: " + ex;
+                    }
+                    nanos += System.nanoTime() - begin;
+                    samples++;
+                    if (mismatch != null) {
+                        failure = "VERIFICATION FAILED at key " + sample.key.id + ", index " + sample.index
+                                + ": " + mismatch;
+                    }
+                }
+                synchronized (this) {
+                    pending--;
+                    notifyAll();
+                }
+            }
+        } catch (InterruptedException ex) {
+            failure = "verifier thread interrupted";
+        }
+    }
+
+    /**
+     * @return a description of the first difference from the reference, or
+     * null if the sample agrees with it.
+     */
+    private String verify(Sample sample) {
+        byte[] chainKey = chainKeys.computeIfAbsent(sample.key.id,
+                id -> ReferenceCKD.CKDpub(sample.key.accountKey, chain));
+        byte[] pubKey = Arrays.copyOf(ReferenceCKD.CKDpub(chainKey, sample.index), 33);
+        if (!Arrays.equals(pubKey, sample.pubKey)) {
+            return "public key " + Bytes.toHex(sample.pubKey) + ", reference " + Bytes.toHex(pubKey);
+        }
+        byte[] pubKeyHash = ReferenceCKD.hash160(pubKey);
+        if (!Arrays.equals(pubKeyHash, sample.pubKeyHash)) {
+            return "HASH160 " + Bytes.toHex(sample.pubKeyHash) + ", reference " + Bytes.toHex(pubKeyHash);
+        }
+        for (int t = 0; t < sample.types.length; t++) {
+            if (sample.addresses[t] != null) {
+                String address = ReferenceCKD.encode(sample.types[t], pubKey, pubKeyHash);
+                if (!address.equals(sample.addresses[t])) {
+                    return sample.types[t] + " address " + sample.addresses[t] + ", reference " + address;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * One result of the fast engines: a public key, its hash and the
+     * addresses encoded from it, null where the watch list left one out.
+     */
+    static final class Sample {
+
+        final JobKey key;
+        final int index;
+        final byte[] pubKey;
+        final byte[] pubKeyHash;
+        final AddressType[] types;
+        final String[] addresses;
+
+        Sample(JobKey key, int index, byte[] pubKey, byte[] pubKeyHash, AddressType[] types, String[] addresses) {
+            this.key = key;
+            this.index = index;
+            this.pubKey = pubKey;
+            this.pubKeyHash = pubKeyHash;
+            this.types = types;
+            this.addresses = addresses;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.eawf.deriver.job;
+
+/**
+ * A contiguous run of address indexes of one extended key.
+ *
+ * @author Carson Mullins
+ */
+final class Segment {
+
+    final JobKey key;
+    final int first;
+    final int last;
+
+    Segment(JobKey key, int first, int last) {
+        this.key = key;
+        this.first = first;
+        this.last = last;
+    }
+}
@@ -0,0 +1,130 @@
+package com.eawf.deriver.job;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Merges the text outputs of the shards of a {@link DerivationJob} into the
+ * output an unsharded run would have produced. Every shard file is already
+ * in (key, index) order, so an ordered k-way merge is sufficient.
+ *
+ * @author Carson Mullins
+ */
+public final class ShardMerger {
+
+    private ShardMerger() {
+    } // Non-instantiable
+
+    /**
+     * Merges the given shard outputs into a single file.
+     *
+     * @param inputs the text outputs of every shard of a job.
+     * @param output the merged file.
+     * @return the number of lines written.
+     * @throws IOException if a file cannot be read or written, an input is
+     * not in (key, index) order or two inputs contain the same address index.
+     */
+    public static long merge(List<Path> inputs, Path output) throws IOException {
+        List<Cursor> cursors = new ArrayList<>();
+        PriorityQueue<Cursor> queue = new PriorityQueue<>();
+        long lines = 0;
+        try (BufferedWriter out = Files.newBufferedWriter(output, StandardCharsets.US_ASCII)) {
+            for (int i = 0; i < inputs.size(); i++) {
+                Cursor cursor = new Cursor(i, inputs.get(i));
+                cursors.add(cursor);
+                if (cursor.advance()) {
+                    queue.add(cursor);
+                }
+            }
+            Cursor previous = null;
+            long previousKey = -1;
+            long previousIndex = -1;
+            while (!queue.isEmpty()) {
+                Cursor cursor = queue.poll();
+                if (previous != null && previous != cursor
+                        && cursor.keyId == previousKey && cursor.index == previousIndex) {
+                    throw new IOException("Index " + cursor.index + " of key " + cursor.keyId + " appears in both "
+                            + previous.file + " and " + cursor.file + "; were the shards run with the same options?");
+                }
+                out.write(cursor.line);
+                out.write('\n');
+                lines++;
+                previous = cursor;
+                previousKey = cursor.keyId;
+                previousIndex = cursor.index;
+                if (cursor.advance()) {
+                    queue.add(cursor);
+                }
+            }
+        } finally {
+            for (Cursor cursor : cursors) {
+                cursor.reader.close();
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * The current line of one input, ordered by (key, index, input).
+     */
+    private static final class Cursor implements Comparable<Cursor> {
+
+        final int ordinal;
+        final Path file;
+        final BufferedReader reader;
+        String line;
+        long keyId = -1;
+        long index = -1;
+
+        Cursor(int ordinal, Path file) throws IOException {
+            this.ordinal = ordinal;
+            this.file = file;
+            this.reader = Files.newBufferedReader(file, StandardCharsets.US_ASCII);
+        }
+
+        /**
+         * Reads the next line, checking that it does not go backwards.
+         *
+         * @return false at the end of the input.
+         */
+        boolean advance() throws IOException {
+            line = reader.readLine();
+            if (line == null) {
+                return false;
+            }
+            String[] fields = line.split("\t", 4);
+            long nextKey;
+            long nextIndex;
+            try {
+                nextKey = Long.parseLong(fields[0]);
+                nextIndex = Long.parseLong(fields[2]);
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException ex) {
+                throw new IOException(file + " contains a malformed line: " + line);
+            }
+            if (nextKey < keyId || nextKey == keyId && nextIndex < index) {
+                throw new IOException(file + " is not in (key, index) order at: " + line);
+            }
+            keyId = nextKey;
+            index = nextIndex;
+            return true;
+        }
+
+        @Override
+        public int compareTo(Cursor other) {
+            if (keyId != other.keyId) {
+                return Long.compare(keyId, other.keyId);
+            }
+            if (index != other.index) {
+                return Long.compare(index, other.index);
+            }
+            return Integer.compare(ordinal, other.ordinal);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.eawf.deriver.job;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A bounded, lock-free queue for exactly one producer thread and one
+ * consumer thread. Each side owns one counter and only publishes it with an
+ * ordered store, so neither side ever writes a variable the other writes.
+ *
+ * @author Carson Mullins
+ */
+final class SpscRing<T> {
+
+    private static final int SPINS = 100;
+    private static final int YIELDS = 10;
+    private static final long PARK_NANOS = 50_000;
+
+    private final Object[] slots;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong(); // Next slot to read
+    private final AtomicLong tail = new AtomicLong(); // Next slot to write
+
+    /**
+     * @param capacity the number of slots, rounded up to a power of two.
+     */
+    SpscRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        slots = new Object[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Appends an element, waiting while the ring is full.
+     *
+     * @param element the element to append.
+     * @param abort polled while waiting; returning true abandons the call.
+     * @throws InterruptedException if the wait was abandoned.
+     */
+    void put(T element, BooleanSupplier abort) throws InterruptedException {
+        long t = tail.get();
+        int idle = 0;
+        while (t - head.get() == slots.length) {
+            idle = idle(idle, abort);
+        }
+        slots[(int) t & mask] = element;
+        tail.lazySet(t + 1);
+    }
+
+    /**
+     * Removes the oldest element, waiting while the ring is empty.
+     *
+     * @param abort polled while waiting; returning true abandons the call.
+     * @return the element.
+     * @throws InterruptedException if the wait was abandoned.
+     */
+    @SuppressWarnings("unchecked")
+    T take(BooleanSupplier abort) throws InterruptedException {
+        long h = head.get();
+        int idle = 0;
+        while (tail.get() == h) {
+            idle = idle(idle, abort);
+        }
+        int slot = (int) h & mask;
+        T element = (T) slots[slot];
+        slots[slot] = null;
+        head.lazySet(h + 1);
+        return element;
+    }
+
+    /**
+     * Backs off progressively: spinning first for the short waits of a busy
+     * pipeline, then yielding, then parking so that an idle stage costs
+     * nothing on a machine with fewer cores than threads.
+     */
+    private static int idle(int idle, BooleanSupplier abort) throws InterruptedException {
+        if (abort.getAsBoolean()) {
+            throw new InterruptedException("pipeline aborted");
+        }
+        if (idle < SPINS) {
+            Thread.onSpinWait();
+        } else if (idle < SPINS + YIELDS) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+        return idle + 1;
+    }
+}
@@ -0,0 +1,147 @@
+package com.eawf.deriver.job;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes addresses as tab-separated lines of
+ * {@code keyId, chain, index, address}, optionally gzip-compressed on
+ * several threads.
+ *
+ * @author Carson Mullins
+ */
+public class TextAddressWriter implements AddressWriter {
+
+    // The default level of gzip and pigz
+    private static final int GZIP_LEVEL = 6;
+
+    private final FileChannel channel;
+    private final OutputStream out;
+    private final StringBuilder line = new StringBuilder(128);
+    private long written;
+    private boolean closed;
+
+    /**
+     * Opens the given file for writing, discarding anything past
+     * {@code offset}. An offset of 0 starts a new file.
+     *
+     * @param file the output file.
+     * @param offset the number of bytes of the existing file to keep.
+     * @throws IOException if the file cannot be opened or is shorter than
+     * {@code offset}.
+     */
+    public TextAddressWriter(Path file, long offset) throws IOException {
+        this(file, offset, 0);
+    }
+
+    /**
+     * Opens the given file for writing, discarding anything past
+     * {@code offset}, and compresses the lines into a multi-member gzip file
+     * on the given number of threads. Every {@link #sync()} ends a member, so
+     * the file can be truncated to any synced length and appended to.
+     *
+     * @param file the output file.
+     * @param offset the number of bytes of the existing file to keep.
+     * @param gzipThreads the number of compressing threads, or 0 to write
+     * plain text.
+     * @throws IOException if the file cannot be opened or is shorter than
+     * {@code offset}.
+     */
+    public TextAddressWriter(Path file, long offset, int gzipThreads) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (channel.size() < offset) {
+            channel.close();
+            throw new IOException(file + " is shorter than its checkpoint (" + offset + " bytes).");
+        }
+        channel.truncate(offset);
+        channel.position(offset);
+        out = open(Channels.newOutputStream(channel), gzipThreads);
+        written = offset;
+    }
+
+    /**
+     * Writes to an already open stream, such as {@code System.out}. The
+     * stream is flushed but never forced to disk.
+     *
+     * @param stream the stream to write to.
+     */
+    public TextAddressWriter(OutputStream stream) {
+        this(stream, 0);
+    }
+
+    /**
+     * Writes to an already open stream, such as {@code System.out}, gzip
+     * compressing on the given number of threads. The stream is flushed but
+     * never forced to disk.
+     *
+     * @param stream the stream to write to.
+     * @param gzipThreads the number of compressing threads, or 0 to write
+     * plain text.
+     */
+    public TextAddressWriter(OutputStream stream, int gzipThreads) {
+        channel = null;
+        out = open(stream, gzipThreads);
+    }
+
+    private static OutputStream open(OutputStream stream, int gzipThreads) {
+        return gzipThreads > 0
+                ? new ParallelGzipOutputStream(stream, gzipThreads, GZIP_LEVEL)
+                : new BufferedOutputStream(stream, 1 << 16);
+    }
+
+    @Override
+    public void write(int keyId, int chain, int index, byte[] pubKeyHash, String address) throws IOException {
+        line.setLength(0);
+        line.append(keyId).append('\t').append(chain).append('\t')
+                .append(index).append('\t').append(address).append('\n');
+        byte[] bytes = line.toString().getBytes(StandardCharsets.US_ASCII);
+        out.write(bytes);
+        written += bytes.length;
+    }
+
+    @Override
+    public long sync() throws IOException {
+        out.flush();
+        if (channel != null) {
+            channel.force(false);
+            // Compressed output is counted where it lands, not as lines
+            return channel.position();
+        }
+        return written;
+    }
+
+    @Override
+    public void abort(long length) throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (out instanceof ParallelGzipOutputStream) {
+            ((ParallelGzipOutputStream) out).abandon();
+        }
+        if (channel != null) {
+            try {
+                channel.truncate(length);
+                channel.force(false);
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        sync();
+        out.close();
+    }
+}
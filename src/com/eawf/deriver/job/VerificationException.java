@@ -0,0 +1,20 @@
+package com.eawf.deriver.job;
+
+import java.io.IOException;
+
+/**
+ * Exception thrown when a sampled result disagrees with the reference
+ * implementation. Everything written since the last checkpoint is suspect,
+ * so the output must be abandoned rather than finished.
+ *
+ * @author Carson Mullins
+ */
+final class VerificationException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    VerificationException(String message) {
+        super(message);
+    }
+
+}
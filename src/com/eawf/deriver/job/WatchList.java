@@ -0,0 +1,183 @@
+package com.eawf.deriver.job;
+
+import com.eawf.deriver.bitcoin.AddressType;
+import com.eawf.deriver.bitcoin.Base58Check;
+import com.eawf.deriver.bitcoin.Bech32;
+import com.eawf.deriver.store.BloomFilter;
+import com.eawf.deriver.store.SortedHash160Array;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * A set of addresses to look for while deriving. The hashes they carry are
+ * kept as raw 20-byte values in one off-heap {@link SortedHash160Array} per
+ * kind of address, fronted by a single {@link BloomFilter} that rejects
+ * almost every derived address without touching the arrays.
+ * <p>
+ * An address entry matches only addresses of its own kind, so a P2PKH entry
+ * never matches the P2WPKH address of the same key. A bare hex hash has no
+ * kind and matches any address carrying that hash.
+ *
+ * @author Carson Mullins
+ */
+public final class WatchList {
+
+    private static final int BLOOM_BITS_PER_ENTRY = 10;
+
+    // Kinds of entry, each with its own array
+    private static final int SKIPPED = -1;
+    private static final int P2PKH = 0;
+    private static final int P2SH = 1;
+    private static final int P2WPKH = 2;
+    private static final int ANY = 3;
+    private static final int KINDS = 4;
+
+    private final SortedHash160Array[] hashes;
+    private final BloomFilter bloom;
+    private final long size;
+    private final long skipped;
+
+    private WatchList(SortedHash160Array[] hashes, long skipped) {
+        this.hashes = hashes;
+        this.skipped = skipped;
+        long total = 0;
+        for (SortedHash160Array kind : hashes) {
+            total += kind.size();
+        }
+        this.size = total;
+        this.bloom = new BloomFilter(total, BLOOM_BITS_PER_ENTRY);
+        byte[] entry = new byte[SortedHash160Array.ENTRY_LEN];
+        for (SortedHash160Array kind : hashes) {
+            for (long i = 0; i < kind.size(); i++) {
+                kind.get(i, entry, 0);
+                bloom.add(entry, 0);
+            }
+        }
+    }
+
+    /**
+     * Loads a watch list with one entry per line: a P2PKH, P2SH or P2WPKH
+     * address, or a 40 character hex HASH160. Blank lines and lines starting
+     * with {@code #} are ignored, as are valid addresses of other types.
+     *
+     * @param file the watch list file.
+     * @return the loaded watch list.
+     * @throws IOException if the file cannot be read or contains an entry
+     * that is neither an address nor a hex hash.
+     */
+    public static WatchList load(Path file) throws IOException {
+        SortedHash160Array[] hashes = new SortedHash160Array[KINDS];
+        for (int k = 0; k < KINDS; k++) {
+            hashes[k] = new SortedHash160Array();
+        }
+        byte[] hash = new byte[SortedHash160Array.ENTRY_LEN];
+        long skipped = 0;
+        long lineNumber = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.US_ASCII)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                try {
+                    int kind = parse(line, hash);
+                    if (kind == SKIPPED) {
+                        skipped++;
+                    } else {
+                        hashes[kind].add(hash, 0);
+                    }
+                } catch (RuntimeException ex) {
+                    throw new IOException(file + " line " + lineNumber + " is not a valid address or hash.", ex);
+                }
+            }
+        }
+        for (SortedHash160Array kind : hashes) {
+            kind.sort();
+        }
+        return new WatchList(hashes, skipped);
+    }
+
+    /**
+     * Decodes a single entry into {@code hash}.
+     *
+     * @return the kind of the entry, or {@code SKIPPED} if it is a valid
+     * address that carries no 20-byte hash.
+     */
+    private static int parse(String entry, byte[] hash) {
+        if (entry.length() == 40 && entry.matches("[0-9a-fA-F]+")) {
+            for (int i = 0; i < hash.length; i++) {
+                hash[i] = (byte) Integer.parseInt(entry.substring(i * 2, i * 2 + 2), 16);
+            }
+            return ANY;
+        }
+        String lower = entry.toLowerCase(Locale.ROOT);
+        if (lower.startsWith("bc1")) {
+            Object[] segwit = Bech32.bech32ToSegwit(lower);
+            byte[] witProg = (byte[]) segwit[2];
+            if ((Integer) segwit[1] != 0 || witProg.length != hash.length) {
+                return SKIPPED;
+            }
+            System.arraycopy(witProg, 0, hash, 0, hash.length);
+            return P2WPKH;
+        }
+        byte[] payload = Base58Check.base58ToBytes(entry);
+        if (payload.length != 21 || (payload[0] != 0x00 && payload[0] != 0x05)) {
+            throw new IllegalArgumentException("not a mainnet P2PKH or P2SH address");
+        }
+        System.arraycopy(payload, 1, hash, 0, hash.length);
+        return payload[0] == 0x00 ? P2PKH : P2SH;
+    }
+
+    /**
+     * @return the number of distinct entries in the watch list, counting a
+     * hash once for every kind of address it was listed as.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @return the number of valid addresses that were ignored because they
+     * do not carry a 20-byte hash.
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * Tests whether an address is on the watch list.
+     *
+     * @param type the type of the address, which must carry a hash.
+     * @param addressHash the 20-byte hash carried by the address, as returned
+     * by {@link AddressType#addressHash(byte[])}.
+     * @return true if the watch list holds this hash as an address of the
+     * given type or as a bare hash.
+     * @throws IllegalArgumentException if addresses of the type carry no
+     * hash.
+     */
+    public boolean contains(AddressType type, byte[] addressHash) {
+        if (!bloom.mightContain(addressHash, 0)) {
+            return false;
+        }
+        return hashes[kindOf(type)].contains(addressHash, 0) || hashes[ANY].contains(addressHash, 0);
+    }
+
+    private static int kindOf(AddressType type) {
+        switch (type) {
+            case P2PKH:
+                return P2PKH;
+            case P2SH_P2WPKH:
+                return P2SH;
+            case P2WPKH:
+                return P2WPKH;
+            default:
+                throw new IllegalArgumentException(type + " addresses carry no hash to watch for");
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.eawf.deriver.store;
+
+/**
+ * Bloom filter over 20-byte HASH160 values. Since the keys are already the
+ * output of a cryptographic hash, the probe positions are taken directly from
+ * the key bytes instead of hashing them again.
+ *
+ * @author Carson Mullins
+ */
+public final class BloomFilter {
+
+    private final long[] bits;
+    private final long mask;
+    private final int hashes;
+
+    /**
+     * Creates an empty filter sized for the given number of entries.
+     *
+     * @param expectedEntries the number of entries that will be added.
+     * @param bitsPerEntry the number of filter bits per entry; 10 gives a
+     * false positive rate of about 1%.
+     */
+    public BloomFilter(long expectedEntries, int bitsPerEntry) {
+        long wanted = Math.max(64, expectedEntries * bitsPerEntry);
+        long size = Long.highestOneBit(wanted);
+        if (size < wanted) {
+            size <<= 1;
+        }
+        if (size / 64 > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many entries for a Bloom filter");
+        }
+        this.bits = new long[(int) (size / 64)];
+        this.mask = size - 1;
+        this.hashes = Math.max(1, (int) Math.round(bitsPerEntry * Math.log(2)));
+    }
+
+    /**
+     * Adds a key to the filter.
+     *
+     * @param hash the array holding the key.
+     * @param off the offset of the 20-byte key within {@code hash}.
+     */
+    public void add(byte[] hash, int off) {
+        long h1 = readLong(hash, off);
+        long h2 = readLong(hash, off + 8) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = (h1 + i * h2) & mask;
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    /**
+     * Tests whether a key may have been added.
+     *
+     * @param hash the array holding the key.
+     * @param off the offset of the 20-byte key within {@code hash}.
+     * @return false if the key was definitely never added.
+     */
+    public boolean mightContain(byte[] hash, int off) {
+        long h1 = readLong(hash, off);
+        long h2 = readLong(hash, off + 8) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = (h1 + i * h2) & mask;
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long readLong(byte[] b, int off) {
+        long v = 0;
+        for (int i = 0; i < 8; i++) {
+            v = (v << 8) | (b[off + i] & 0xFF);
+        }
+        return v;
+    }
+}
@@ -0,0 +1,218 @@
+package com.eawf.deriver.store;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Open-addressing hash table from 20-byte HASH160 keys to {@code int}
+ * values, held outside the Java heap. Each slot is the raw key followed by
+ * its value (24 bytes) with one occupancy bit on the heap, and there are no
+ * per-entry objects. The slot count is a power of two at least 4/3 of the
+ * entry count: a table created for 100 million entries has 2^27 slots,
+ * taking 3 GiB of direct memory and 16 MiB of heap. A table that grows into
+ * that size holds its old and new slots at once while growing, 4.5 GiB at
+ * the peak, so give the expected size up front when it is known.
+ * <p>
+ * HASH160 values are uniformly distributed, so the slot is taken directly
+ * from the key's leading bytes and collisions are resolved by linear probing.
+ * The table doubles when it becomes three quarters full.
+ *
+ * @author Carson Mullins
+ */
+public final class Hash160Table {
+
+    private static final int KEY_LEN = 20;
+    private static final int SLOT_LEN = KEY_LEN + 4;
+    private static final int CHUNK_SHIFT = 24;  // 2^24 slots (384 MiB) per chunk
+    private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+    private static final int MIN_CAPACITY = 16;
+
+    private List<ByteBuffer> chunks;
+    private long[] occupied;
+    private long mask;
+    private long size;
+
+    /**
+     * Creates an empty table able to hold the given number of entries
+     * without growing.
+     *
+     * @param expectedEntries the number of entries that will be added.
+     */
+    public Hash160Table(long expectedEntries) {
+        long capacity = MIN_CAPACITY;
+        while (capacity * 3 / 4 < expectedEntries) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    /**
+     * @return the number of entries.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Looks up the value of a key.
+     *
+     * @param key the array holding the key.
+     * @param off the offset of the 20-byte key within {@code key}.
+     * @param defaultValue the value to return if the key is absent.
+     * @return the value of the key, or {@code defaultValue}.
+     */
+    public int get(byte[] key, int off, int defaultValue) {
+        long slot = find(key, off);
+        return isOccupied(slot) ? chunk(slot).getInt(position(slot) + KEY_LEN) : defaultValue;
+    }
+
+    /**
+     * @param key the array holding the key.
+     * @param off the offset of the 20-byte key within {@code key}.
+     * @return true if the key has a value.
+     */
+    public boolean containsKey(byte[] key, int off) {
+        return isOccupied(find(key, off));
+    }
+
+    /**
+     * Sets the value of a key, replacing any previous value.
+     *
+     * @param key the array holding the key.
+     * @param off the offset of the 20-byte key within {@code key}.
+     * @param value the value.
+     */
+    public void put(byte[] key, int off, int value) {
+        long slot = find(key, off);
+        if (!isOccupied(slot)) {
+            slot = insert(slot, key, off);
+        }
+        chunk(slot).putInt(position(slot) + KEY_LEN, value);
+    }
+
+    /**
+     * Sets the value of a key unless it already has one.
+     *
+     * @param key the array holding the key.
+     * @param off the offset of the 20-byte key within {@code key}.
+     * @param value the value.
+     * @return true if the key was added, false if it was already present.
+     */
+    public boolean putIfAbsent(byte[] key, int off, int value) {
+        long slot = find(key, off);
+        if (isOccupied(slot)) {
+            return false;
+        }
+        slot = insert(slot, key, off);
+        chunk(slot).putInt(position(slot) + KEY_LEN, value);
+        return true;
+    }
+
+    /**
+     * Claims the empty slot found for a key, growing the table first if
+     * needed.
+     *
+     * @return the slot now holding the key.
+     */
+    private long insert(long slot, byte[] key, int off) {
+        if ((size + 1) > (mask + 1) * 3 / 4) {
+            grow();
+            slot = find(key, off);
+        }
+        ByteBuffer chunk = chunk(slot);
+        int pos = position(slot);
+        for (int i = 0; i < KEY_LEN; i++) {
+            chunk.put(pos + i, key[off + i]);
+        }
+        occupied[(int) (slot >>> 6)] |= 1L << slot;
+        size++;
+        return slot;
+    }
+
+    /**
+     * Probes for a key.
+     *
+     * @return the slot holding the key, or the empty slot where it belongs.
+     */
+    private long find(byte[] key, int off) {
+        long k0 = readLong(key, off);
+        long k1 = readLong(key, off + 8);
+        int k2 = readInt(key, off + 16);
+        long slot = k0 & mask;
+        while (isOccupied(slot)) {
+            ByteBuffer chunk = chunk(slot);
+            int pos = position(slot);
+            if (chunk.getLong(pos) == k0 && chunk.getLong(pos + 8) == k1 && chunk.getInt(pos + 16) == k2) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        List<ByteBuffer> oldChunks = chunks;
+        long[] oldOccupied = occupied;
+        long oldCapacity = mask + 1;
+        allocate(oldCapacity << 1);
+        byte[] key = new byte[KEY_LEN];
+        for (long slot = 0; slot < oldCapacity; slot++) {
+            if ((oldOccupied[(int) (slot >>> 6)] & (1L << slot)) == 0) {
+                continue;
+            }
+            ByteBuffer chunk = oldChunks.get((int) (slot >>> CHUNK_SHIFT));
+            int pos = position(slot);
+            for (int i = 0; i < KEY_LEN; i++) {
+                key[i] = chunk.get(pos + i);
+            }
+            long to = find(key, 0);
+            ByteBuffer toChunk = chunk(to);
+            int toPos = position(to);
+            for (int i = 0; i < KEY_LEN; i++) {
+                toChunk.put(toPos + i, key[i]);
+            }
+            toChunk.putInt(toPos + KEY_LEN, chunk.getInt(pos + KEY_LEN));
+            occupied[(int) (to >>> 6)] |= 1L << to;
+            size++;
+        }
+    }
+
+    private void allocate(long capacity) {
+        if (capacity / 64 > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Hash table capacity exceeded");
+        }
+        chunks = new ArrayList<>();
+        for (long allocated = 0; allocated < capacity; allocated += CHUNK_MASK + 1) {
+            long slots = Math.min(capacity - allocated, CHUNK_MASK + 1);
+            chunks.add(ByteBuffer.allocateDirect((int) slots * SLOT_LEN));
+        }
+        occupied = new long[(int) Math.max(1, capacity / 64)];
+        mask = capacity - 1;
+        size = 0;
+    }
+
+    private boolean isOccupied(long slot) {
+        return (occupied[(int) (slot >>> 6)] & (1L << slot)) != 0;
+    }
+
+    private ByteBuffer chunk(long slot) {
+        return chunks.get((int) (slot >>> CHUNK_SHIFT));
+    }
+
+    private static int position(long slot) {
+        return (int) (slot & CHUNK_MASK) * SLOT_LEN;
+    }
+
+    private static long readLong(byte[] b, int off) {
+        long v = 0;
+        for (int i = 0; i < 8; i++) {
+            v = (v << 8) | (b[off + i] & 0xFF);
+        }
+        return v;
+    }
+
+    private static int readInt(byte[] b, int off) {
+        return (b[off] & 0xFF) << 24 | (b[off + 1] & 0xFF) << 16 | (b[off + 2] & 0xFF) << 8 | (b[off + 3] & 0xFF);
+    }
+}
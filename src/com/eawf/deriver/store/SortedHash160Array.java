@@ -0,0 +1,242 @@
+package com.eawf.deriver.store;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sorted set of 20-byte HASH160 values held outside the Java heap. Values
+ * are appended, then {@link #sort()} orders and deduplicates them once, after
+ * which {@link #contains(byte[], int)} answers by binary search. Each value
+ * costs exactly 20 bytes of direct memory, with no per-entry object.
+ *
+ * @author Carson Mullins
+ */
+public final class SortedHash160Array {
+
+    /**
+     * The size in bytes of a single entry.
+     */
+    public static final int ENTRY_LEN = 20;
+
+    private static final int CHUNK_SHIFT = 20;  // 2^20 entries (20 MiB) per chunk
+    private static final int CHUNK_ENTRIES = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_ENTRIES - 1;
+    private static final int INSERTION_SORT_MAX = 16;
+
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private long size;
+    private boolean sorted = true;
+
+    /**
+     * @return the number of entries.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Appends an entry. The array must be sorted again before lookups.
+     *
+     * @param hash the array holding the entry.
+     * @param off the offset of the 20-byte entry within {@code hash}.
+     */
+    public void add(byte[] hash, int off) {
+        if ((size & CHUNK_MASK) == 0 && (size >>> CHUNK_SHIFT) == chunks.size()) {
+            chunks.add(ByteBuffer.allocateDirect(CHUNK_ENTRIES * ENTRY_LEN));
+        }
+        ByteBuffer chunk = chunks.get((int) (size >>> CHUNK_SHIFT));
+        int pos = (int) (size & CHUNK_MASK) * ENTRY_LEN;
+        for (int i = 0; i < ENTRY_LEN; i++) {
+            chunk.put(pos + i, hash[off + i]);
+        }
+        size++;
+        sorted = false;
+    }
+
+    /**
+     * Copies an entry out of the array.
+     *
+     * @param i the position of the entry, from 0 to {@code size() - 1}.
+     * @param dst the array to copy the entry into.
+     * @param off the offset within {@code dst} to copy the 20 bytes to.
+     */
+    public void get(long i, byte[] dst, int off) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Entry " + i + " of " + size);
+        }
+        ByteBuffer chunk = chunk(i);
+        int pos = position(i);
+        for (int j = 0; j < ENTRY_LEN; j++) {
+            dst[off + j] = chunk.get(pos + j);
+        }
+    }
+
+    /**
+     * Sorts the entries in unsigned byte order and removes duplicates.
+     */
+    public void sort() {
+        if (sorted) {
+            return;
+        }
+        quickSort(0, size - 1);
+        long unique = 0;
+        for (long i = 0; i < size; i++) {
+            if (unique == 0 || compare(i, unique - 1) != 0) {
+                if (unique != i) {
+                    copy(i, unique);
+                }
+                unique++;
+            }
+        }
+        size = unique;
+        sorted = true;
+    }
+
+    /**
+     * Tests whether the given value is an entry.
+     *
+     * @param hash the array holding the value.
+     * @param off the offset of the 20-byte value within {@code hash}.
+     * @return true if the value was added.
+     * @throws IllegalStateException if entries were added since the last
+     * {@link #sort()}.
+     */
+    public boolean contains(byte[] hash, int off) {
+        if (!sorted) {
+            throw new IllegalStateException("sort() must be called before lookups");
+        }
+        long hi0 = readLong(hash, off);
+        long hi1 = readLong(hash, off + 8);
+        int lo = readInt(hash, off + 16);
+        long low = 0;
+        long high = size - 1;
+        while (low <= high) {
+            long mid = (low + high) >>> 1;
+            ByteBuffer chunk = chunk(mid);
+            int pos = position(mid);
+            int c = Long.compareUnsigned(chunk.getLong(pos), hi0);
+            if (c == 0) {
+                c = Long.compareUnsigned(chunk.getLong(pos + 8), hi1);
+                if (c == 0) {
+                    c = Integer.compareUnsigned(chunk.getInt(pos + 16), lo);
+                }
+            }
+            if (c < 0) {
+                low = mid + 1;
+            } else if (c > 0) {
+                high = mid - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*---- Sorting ----*/
+    // Quicksort with median-of-three pivots, recursing into the smaller side
+    // so the stack stays logarithmic, and insertion sort for short ranges.
+    private void quickSort(long low, long high) {
+        while (high - low > INSERTION_SORT_MAX) {
+            long mid = (low + high) >>> 1;
+            if (compare(mid, low) < 0) {
+                swap(mid, low);
+            }
+            if (compare(high, low) < 0) {
+                swap(high, low);
+            }
+            if (compare(high, mid) < 0) {
+                swap(high, mid);
+            }
+            // The pivot is parked at high - 1; low and high are already sorted around it
+            swap(mid, high - 1);
+            long pivot = high - 1;
+            long i = low;
+            long j = high - 1;
+            while (true) {
+                while (compare(++i, pivot) < 0) {
+                }
+                while (compare(--j, pivot) > 0) {
+                }
+                if (i >= j) {
+                    break;
+                }
+                swap(i, j);
+            }
+            swap(i, high - 1);
+            if (i - low < high - i) {
+                quickSort(low, i - 1);
+                low = i + 1;
+            } else {
+                quickSort(i + 1, high);
+                high = i - 1;
+            }
+        }
+        for (long i = low + 1; i <= high; i++) {
+            for (long j = i; j > low && compare(j, j - 1) < 0; j--) {
+                swap(j, j - 1);
+            }
+        }
+    }
+
+    private int compare(long a, long b) {
+        ByteBuffer ca = chunk(a);
+        ByteBuffer cb = chunk(b);
+        int pa = position(a);
+        int pb = position(b);
+        int c = Long.compareUnsigned(ca.getLong(pa), cb.getLong(pb));
+        if (c == 0) {
+            c = Long.compareUnsigned(ca.getLong(pa + 8), cb.getLong(pb + 8));
+            if (c == 0) {
+                c = Integer.compareUnsigned(ca.getInt(pa + 16), cb.getInt(pb + 16));
+            }
+        }
+        return c;
+    }
+
+    private void swap(long a, long b) {
+        ByteBuffer ca = chunk(a);
+        ByteBuffer cb = chunk(b);
+        int pa = position(a);
+        int pb = position(b);
+        long l0 = ca.getLong(pa);
+        long l1 = ca.getLong(pa + 8);
+        int i2 = ca.getInt(pa + 16);
+        ca.putLong(pa, cb.getLong(pb));
+        ca.putLong(pa + 8, cb.getLong(pb + 8));
+        ca.putInt(pa + 16, cb.getInt(pb + 16));
+        cb.putLong(pb, l0);
+        cb.putLong(pb + 8, l1);
+        cb.putInt(pb + 16, i2);
+    }
+
+    private void copy(long from, long to) {
+        ByteBuffer cf = chunk(from);
+        ByteBuffer ct = chunk(to);
+        int pf = position(from);
+        int pt = position(to);
+        ct.putLong(pt, cf.getLong(pf));
+        ct.putLong(pt + 8, cf.getLong(pf + 8));
+        ct.putInt(pt + 16, cf.getInt(pf + 16));
+    }
+
+    private ByteBuffer chunk(long i) {
+        return chunks.get((int) (i >>> CHUNK_SHIFT));
+    }
+
+    private static int position(long i) {
+        return (int) (i & CHUNK_MASK) * ENTRY_LEN;
+    }
+
+    private static long readLong(byte[] b, int off) {
+        long v = 0;
+        for (int i = 0; i < 8; i++) {
+            v = (v << 8) | (b[off + i] & 0xFF);
+        }
+        return v;
+    }
+
+    private static int readInt(byte[] b, int off) {
+        return (b[off] & 0xFF) << 24 | (b[off + 1] & 0xFF) << 16 | (b[off + 2] & 0xFF) << 8 | (b[off + 3] & 0xFF);
+    }
+}
@@ -0,0 +1,45 @@
+package com.eawf.deriver.util;
+
+/**
+ * Computes HASH160 (RIPEMD-160 of SHA-256) of runs of 33-byte compressed
+ * public keys stored back to back, the form in which the bulk derivation
+ * path hands keys to the hashing step.
+ * <p>
+ * This is a batch API only, with no multi-lane or SIMD path: the keys are
+ * hashed one after the other with a single reused {@link Hash160}, so a run
+ * costs no allocation. The Vector API needs JDK 16 or later and is still an
+ * incubator module, while this project targets Java 11, and a
+ * lane-interleaved scalar loop, which HotSpot does not vectorize, measured
+ * slower than hashing each key in turn. Instances are not thread-safe.
+ *
+ * @author Carson Mullins
+ */
+public final class BatchHash160 {
+
+    /**
+     * The length of every input key.
+     */
+    public static final int KEY_LEN = 33;
+
+    /**
+     * The length of every output hash.
+     */
+    public static final int HASH_LEN = 20;
+
+    private final Hash160 hash160 = new Hash160();
+
+    /**
+     * Hashes consecutive 33-byte keys.
+     *
+     * @param in the array holding the keys back to back.
+     * @param inOff the offset of the first key.
+     * @param count the number of keys.
+     * @param out the destination of the 20-byte hashes, back to back.
+     * @param outOff the offset to write the first hash to.
+     */
+    public void hash(byte[] in, int inOff, int count, byte[] out, int outOff) {
+        for (int j = 0; j < count; j++) {
+            hash160.hashPubKey(in, inOff + j * KEY_LEN, out, outOff + j * HASH_LEN);
+        }
+    }
+}
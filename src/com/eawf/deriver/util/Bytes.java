@@ -2,6 +2,7 @@ package com.eawf.deriver.util;
 
 import com.eawf.deriver.bitcoin.Base58Check;
 import com.eawf.deriver.bitcoin.Bech32;
+import com.eawf.deriver.bitcoin.Taproot;
 
 /**
  * Utility class for {@code byte} operations.
@@ -30,6 +31,22 @@ public class Bytes {
         return output;
     }
 
+    /**
+     * Converts a byte array into its lowercase hexadecimal representation.
+     *
+     * @param bytes the bytes to convert.
+     * @return the hexadecimal string, two characters per byte.
+     */
+    public static String toHex(byte[] bytes) {
+        char[] hexChars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int v = bytes[i] & 0xFF;
+            hexChars[i * 2] = HEX_ARRAY[v >>> 4];
+            hexChars[i * 2 + 1] = HEX_ARRAY[v & 0x0F];
+        }
+        return new String(hexChars);
+    }
+
     /**
      * Encodes the given public key hash as a P2PKH address.
      *
@@ -48,12 +65,22 @@ public class Bytes {
      * @return a P2SH-P2WPKH address (begins with "3")
      */
     public static String getAddressP2SHP2WPKH(byte[] pubKeyHash) {
-        byte[] witnessProgram = concat(new byte[]{0x00, 0x14}, pubKeyHash);
-        byte[] scriptHash = Hashes.hash160(witnessProgram);
-        byte[] address_bytes = concat(new byte[]{0x05}, scriptHash);
+        byte[] address_bytes = concat(new byte[]{0x05}, getScriptHashP2SHP2WPKH(pubKeyHash));
         return Base58Check.bytesToBase58(address_bytes);
     }
 
+    /**
+     * Computes the script hash a P2SH-P2WPKH address encodes, which is the
+     * HASH160 of the witness program {@code 0x0014 || pubKeyHash}.
+     *
+     * @param pubKeyHash the public key hash to wrap
+     * @return the 20-byte script hash
+     */
+    public static byte[] getScriptHashP2SHP2WPKH(byte[] pubKeyHash) {
+        byte[] witnessProgram = concat(new byte[]{0x00, 0x14}, pubKeyHash);
+        return Hashes.hash160(witnessProgram);
+    }
+
     /**
      * Encodes the given public key hash as a P2WPKH address.
      *
@@ -63,4 +90,14 @@ public class Bytes {
     public static String getAddressP2WPKH(byte[] pubKeyHash) {
         return Bech32.segwitToBech32("bc", 0, pubKeyHash);
     }
+
+    /**
+     * Encodes the given public key as a BIP86 P2TR address.
+     *
+     * @param pubKey the 33-byte compressed public key to encode
+     * @return a P2TR address (begins with "bc1p")
+     */
+    public static String getAddressP2TR(byte[] pubKey) {
+        return Bech32.segwitToBech32("bc", 1, Taproot.outputKey(pubKey));
+    }
 }
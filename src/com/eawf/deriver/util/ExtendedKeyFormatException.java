@@ -2,7 +2,7 @@ package com.eawf.deriver.util;
 
 /**
  * Exception thrown when a given input does not match the proper format of a
- * bitcoin account-level extended public key.
+ * bitcoin account-level extended public or private key.
  *
  * @author Carson Mullins
  */
@@ -0,0 +1,97 @@
+package com.eawf.deriver.util;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * HASH160 (RIPEMD-160 of SHA-256) specialised for inputs that fit a single
+ * SHA-256 block, which covers the 33-byte compressed public keys and 22-byte
+ * P2WPKH witness programs on the address derivation path.
+ * <p>
+ * SHA-256 stays with the JDK, whose implementation is a compiler intrinsic
+ * that no Java code can match, but one digest is reused and written into a
+ * fixed buffer. Its 32-byte output always fills exactly one RIPEMD-160
+ * block, so the padding and length words are set once and the digest is
+ * read straight into the message schedule as ints. Instances hold their
+ * working buffers and are not thread-safe.
+ *
+ * @author Carson Mullins
+ */
+public final class Hash160 {
+
+    /**
+     * The length of a HASH160 digest.
+     */
+    public static final int LEN = 20;
+
+    /**
+     * The longest input that fits a single SHA-256 block.
+     */
+    public static final int MAX_INPUT_LEN = 55;
+
+    private final MessageDigest sha256;
+    private final byte[] digest = new byte[32];
+    private final int[] schedule = new int[16];
+    private final int[] state = new int[5];
+
+    /**
+     * Creates a hasher.
+     */
+    public Hash160() {
+        try {
+            sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new RuntimeException(ex);
+        }
+        // A 32-byte message: 0x80, then its length in bits
+        schedule[8] = 0x80;
+        schedule[14] = 32 * 8;
+    }
+
+    /**
+     * Computes HASH160 of a 33-byte compressed public key.
+     *
+     * @param in the array holding the key.
+     * @param inOff the offset of the key within {@code in}.
+     * @param out the destination array.
+     * @param outOff the offset within out to write the 20-byte hash to.
+     */
+    public void hashPubKey(byte[] in, int inOff, byte[] out, int outOff) {
+        hash(in, inOff, 33, out, outOff);
+    }
+
+    /**
+     * Computes HASH160 of a short input.
+     *
+     * @param in the array holding the input.
+     * @param inOff the offset of the input within {@code in}.
+     * @param len the length of the input, at most {@link #MAX_INPUT_LEN}.
+     * @param out the destination array.
+     * @param outOff the offset within out to write the 20-byte hash to.
+     */
+    public void hash(byte[] in, int inOff, int len, byte[] out, int outOff) {
+        if (len > MAX_INPUT_LEN) {
+            throw new IllegalArgumentException("Input does not fit a single SHA-256 block.");
+        }
+        sha256.update(in, inOff, len);
+        try {
+            sha256.digest(digest, 0, digest.length);
+        } catch (DigestException ex) {
+            throw new RuntimeException(ex);
+        }
+        for (int i = 0, j = 0; i < 8; i++, j += 4) {
+            schedule[i] = (digest[j] & 0xFF) | (digest[j + 1] & 0xFF) << 8
+                    | (digest[j + 2] & 0xFF) << 16 | digest[j + 3] << 24;
+        }
+        System.arraycopy(Hashes.Ripemd160.IV, 0, state, 0, 5);
+        Hashes.Ripemd160.compress(state, schedule);
+        for (int i = 0; i < 5; i++, outOff += 4) {
+            int v = state[i];
+            out[outOff] = (byte) v;
+            out[outOff + 1] = (byte) (v >>> 8);
+            out[outOff + 2] = (byte) (v >>> 16);
+            out[outOff + 3] = (byte) (v >>> 24);
+        }
+    }
+}
@@ -25,6 +25,8 @@ public class Hashes {
     private Hashes() {
     } // Non-instantiable
 
+    private static final ThreadLocal<Hash160> HASH160 = ThreadLocal.withInitial(Hash160::new);
+
     /**
      * Hashed Message Authentication Code, using SHA-512.
      *
@@ -56,6 +58,12 @@ public class Hashes {
      * @return the RIPEMD-160 hash of the SHA-256 hash of the data.
      */
     public static byte[] hash160(byte[] data) {
+        // Public keys and witness programs fit one block: take the fixed path
+        if (data.length <= Hash160.MAX_INPUT_LEN) {
+            byte[] hash = new byte[Hash160.LEN];
+            HASH160.get().hash(data, 0, data.length, hash, 0);
+            return hash;
+        }
         return ripemd160(sha256(data));
     }
 
@@ -107,7 +115,7 @@ public class Hashes {
         public static byte[] getHash(byte[] msg) {
             // Compress whole message blocks
             Objects.requireNonNull(msg);
-            int[] state = {0x67452301, 0xEFCDAB89, 0x98BADCFE, 0x10325476, 0xC3D2E1F0};
+            int[] state = IV.clone();
             int off = msg.length / BLOCK_LEN * BLOCK_LEN;
             compress(state, msg, off);
 
@@ -147,35 +155,42 @@ public class Hashes {
                 for (int j = 0; j < BLOCK_LEN; j++) {
                     schedule[j / 4] |= (blocks[i + j] & 0xFF) << (j % 4 * 8);
                 }
+                compress(state, schedule);
+            }
+        }
 
-                // The 80 rounds
-                int al = state[0], ar = state[0];
-                int bl = state[1], br = state[1];
-                int cl = state[2], cr = state[2];
-                int dl = state[3], dr = state[3];
-                int el = state[4], er = state[4];
-                for (int j = 0; j < 80; j++) {
-                    int temp;
-                    temp = rotateLeft(al + f(j, bl, cl, dl) + schedule[RL[j]] + KL[j / 16], SL[j]) + el;
-                    al = el;
-                    el = dl;
-                    dl = rotateLeft(cl, 10);
-                    cl = bl;
-                    bl = temp;
-                    temp = rotateLeft(ar + f(79 - j, br, cr, dr) + schedule[RR[j]] + KR[j / 16], SR[j]) + er;
-                    ar = er;
-                    er = dr;
-                    dr = rotateLeft(cr, 10);
-                    cr = br;
-                    br = temp;
-                }
-                int temp = state[1] + cl + dr;
-                state[1] = state[2] + dl + er;
-                state[2] = state[3] + el + ar;
-                state[3] = state[4] + al + br;
-                state[4] = state[0] + bl + cr;
-                state[0] = temp;
+        /**
+         * Compresses one block given as its sixteen little-endian message
+         * words, for callers that already hold the block as ints.
+         */
+        static void compress(int[] state, int[] schedule) {
+            // The 80 rounds
+            int al = state[0], ar = state[0];
+            int bl = state[1], br = state[1];
+            int cl = state[2], cr = state[2];
+            int dl = state[3], dr = state[3];
+            int el = state[4], er = state[4];
+            for (int j = 0; j < 80; j++) {
+                int temp;
+                temp = rotateLeft(al + f(j, bl, cl, dl) + schedule[RL[j]] + KL[j / 16], SL[j]) + el;
+                al = el;
+                el = dl;
+                dl = rotateLeft(cl, 10);
+                cl = bl;
+                bl = temp;
+                temp = rotateLeft(ar + f(79 - j, br, cr, dr) + schedule[RR[j]] + KR[j / 16], SR[j]) + er;
+                ar = er;
+                er = dr;
+                dr = rotateLeft(cr, 10);
+                cr = br;
+                br = temp;
             }
+            int temp = state[1] + cl + dr;
+            state[1] = state[2] + dl + er;
+            state[2] = state[3] + el + ar;
+            state[3] = state[4] + al + br;
+            state[4] = state[0] + bl + cr;
+            state[0] = temp;
         }
 
         private static int f(int i, int x, int y, int z) {
@@ -196,6 +211,8 @@ public class Hashes {
         }
 
         /*---- Class constants ----*/
+        static final int[] IV = {0x67452301, 0xEFCDAB89, 0x98BADCFE, 0x10325476, 0xC3D2E1F0};
+
         private static final int[] KL = {0x00000000, 0x5A827999, 0x6ED9EBA1, 0x8F1BBCDC, 0xA953FD4E};  // Round constants for left line
         private static final int[] KR = {0x50A28BE6, 0x5C4DD124, 0x6D703EF3, 0x7A6D76E9, 0x00000000};  // Round constants for right line
 
@@ -0,0 +1,68 @@
+package com.eawf.deriver.util;
+
+/**
+ * HMAC-SHA512 with a fixed key. The key is absorbed once: the SHA-512
+ * midstates after the {@code key ^ ipad} and {@code key ^ opad} blocks are
+ * kept, so every message afterwards costs only the compressions of the
+ * message itself and of the outer digest (two in total for messages up to
+ * 111 bytes, such as the 37-byte inputs of BIP-32 derivation). Instances are
+ * immutable and may be shared between threads.
+ *
+ * @author Carson Mullins
+ */
+public final class HmacSha512 {
+
+    private final long[] innerState;
+    private final long[] outerState;
+
+    /**
+     * Absorbs the key into the inner and outer midstates.
+     *
+     * @param key the HMAC key.
+     */
+    public HmacSha512(byte[] key) {
+        if (key.length > Sha512.BLOCK_LEN) {
+            key = Sha512.hash(key);
+        }
+        byte[] ipad = new byte[Sha512.BLOCK_LEN];
+        byte[] opad = new byte[Sha512.BLOCK_LEN];
+        for (int i = 0; i < Sha512.BLOCK_LEN; i++) {
+            byte k = i < key.length ? key[i] : 0;
+            ipad[i] = (byte) (k ^ 0x36);
+            opad[i] = (byte) (k ^ 0x5C);
+        }
+        long[] w = new long[80];
+        innerState = Sha512.initialState();
+        Sha512.compress(innerState, w, ipad, 0);
+        outerState = Sha512.initialState();
+        Sha512.compress(outerState, w, opad, 0);
+    }
+
+    /**
+     * Computes the HMAC of a message.
+     *
+     * @param msg the array holding the message.
+     * @param off the offset of the message within {@code msg}.
+     * @param len the length of the message.
+     * @param out the destination of the 64-byte HMAC.
+     * @param outOff the offset within {@code out} to write the HMAC to.
+     */
+    public void mac(byte[] msg, int off, int len, byte[] out, int outOff) {
+        long[] state = innerState.clone();
+        Sha512.finish(state, Sha512.BLOCK_LEN, msg, off, len, out, outOff);
+        state = outerState.clone();
+        Sha512.finish(state, Sha512.BLOCK_LEN, out, outOff, Sha512.DIGEST_LEN, out, outOff);
+    }
+
+    /**
+     * Computes the HMAC of a message.
+     *
+     * @param msg the message.
+     * @return the 64-byte HMAC.
+     */
+    public byte[] mac(byte[] msg) {
+        byte[] out = new byte[Sha512.DIGEST_LEN];
+        mac(msg, 0, msg.length, out, 0);
+        return out;
+    }
+}
@@ -1,7 +1,14 @@
 package com.eawf.deriver.util;
 
 import com.eawf.deriver.bitcoin.Base58Check;
+import com.eawf.deriver.bitcoin.ChainNode;
+import com.eawf.deriver.bitcoin.KeyNode;
+import com.eawf.deriver.bitcoin.PrivateChainNode;
+import com.eawf.deriver.ecc.ConstantTimeMultiply;
 import com.eawf.deriver.ecc.CurveParams;
+import com.eawf.deriver.ecc.Field;
+import com.eawf.deriver.ecc.ProjectivePoint;
+import com.eawf.deriver.ecc.Scalar;
 import com.eawf.deriver.ecc.ScalarMultiply;
 import java.math.BigInteger;
 import java.security.KeyFactory;
@@ -17,13 +24,21 @@ public final class Keys {
     public static final byte[] XPUB = {(byte) 0x04, (byte) 0x88, (byte) 0xB2, (byte) 0x1E};
     public static final byte[] YPUB = {(byte) 0x04, (byte) 0x9D, (byte) 0x7C, (byte) 0xB2};
     public static final byte[] ZPUB = {(byte) 0x04, (byte) 0xB2, (byte) 0x47, (byte) 0x46};
+    public static final byte[] XPRV = {(byte) 0x04, (byte) 0x88, (byte) 0xAD, (byte) 0xE4};
+    public static final byte[] YPRV = {(byte) 0x04, (byte) 0x9D, (byte) 0x78, (byte) 0x78};
+    public static final byte[] ZPRV = {(byte) 0x04, (byte) 0xB2, (byte) 0x43, (byte) 0x0C};
 
     private Keys() {
     } // Non-instantiable
 
     /**
      * Performs Scalar Multiplication about a specified point and returns the
-     * public key's bytes.
+     * public key's bytes. Since {@code prvKey} is secret, the multiplication
+     * is done in constant time by {@link ConstantTimeMultiply}, using its
+     * precomputed table when {@code genPoint} is the generator and a cached
+     * table of the same kind when another point is used repeatedly; the
+     * variable-time {@link ScalarMultiply#scalmult(ECPoint, BigInteger)}
+     * remains available for public scalars.
      *
      * @param prvKey the private key used in scalar multiplication.
      * @param genPoint the generator point used in scalar multiplication.
@@ -31,21 +46,11 @@ public final class Keys {
      * {@code genPoint}.
      */
     public static byte[] createPubKey(byte[] prvKey, ECPoint genPoint) {
-        BigInteger masterS = new BigInteger(1, prvKey);
-        ECPoint point = ScalarMultiply.scalmult(genPoint, masterS);
-        BigInteger x = point.getAffineX();
-        BigInteger y = point.getAffineY();
-        byte[] x_bytes = new byte[32];
-        byte[] x_raw = x.toByteArray();
-        if (x_raw.length > 32) {
-            x_bytes = Arrays.copyOfRange(x_raw, x_raw.length - 32, x_raw.length);
-        } else if (x_raw.length < 32) {
-            System.arraycopy(x_raw, 0, x_bytes, 32 - x_raw.length, x_raw.length);
-        } else {
-            x_bytes = x_raw;
-        }
-        byte parity = (byte) (y.testBit(0) ? 0x03 : 0x02);
-        return Bytes.concat(new byte[]{parity}, x_bytes);
+        byte[] k = ConstantTimeMultiply.toScalar(prvKey);
+        ProjectivePoint point = genPoint.equals(CurveParams.G)
+                ? ConstantTimeMultiply.multiplyG(k)
+                : ConstantTimeMultiply.multiply(genPoint, k);
+        return point.encodeCompressed();
     }
 
     /**
@@ -79,39 +84,30 @@ public final class Keys {
      * 0x03 || X value).
      * @return the bytes of a public key in uncompressed form (0x04 || X value
      * || Y value).
+     * @throws IllegalArgumentException if the bytes are not a point on the
+     * curve.
      */
     public static byte[] decompressPubKey(byte[] pubKeyBytes) {
-        byte[] K_x_bytes = new byte[32];
-        System.arraycopy(pubKeyBytes, 1, K_x_bytes, 0, K_x_bytes.length);
-        byte parity = pubKeyBytes[0];
-        BigInteger K_x = new BigInteger(1, K_x_bytes);
-        BigInteger y_square = K_x.modPow(
-                BigInteger.valueOf(3), CurveParams.p).add(CurveParams.b)
-                .mod(CurveParams.p);
-        BigInteger y_root = y_square.modPow(
-                CurveParams.p.add(BigInteger.ONE).divide(BigInteger.valueOf(4)),
-                CurveParams.p);
-        BigInteger K_y;
-        if (parity == 0x02 && y_root.testBit(0)
-                || parity == 0x03 && !y_root.testBit(0)) {
-            K_y = y_root.negate().mod(CurveParams.p);
-        } else {
-            K_y = y_root;
+        int[] x = Field.create();
+        int[] y = Field.create();
+        if (!ProjectivePoint.decompress(pubKeyBytes, 0, x, y)) {
+            throw new IllegalArgumentException("Public key is not a point on the curve");
         }
-        byte[] K_y_bytes = Strings.toBytes(String.format("%064X", K_y));
-        byte[] K_uncomp = Bytes.concat(new byte[]{0x04},
-                Bytes.concat(K_x_bytes, K_y_bytes));
+        byte[] K_uncomp = new byte[65];
+        K_uncomp[0] = 0x04;
+        Field.toBytes(x, K_uncomp, 1);
+        Field.toBytes(y, K_uncomp, 33);
         return K_uncomp;
     }
 
     /**
-     * Validates a given Account-Level Extended Public Key and returns the raw
-     * bytes without checksum.
+     * Validates a given Account-Level Extended Public or Private Key and
+     * returns the raw bytes without checksum.
      *
-     * @param xkey_ser the extended public key to verify
-     * @return the raw bytes of the extended public key
-     * @throws ExtendedKeyFormatException if the extended public key does not
-     * match the expected format for an account-level extended public key
+     * @param xkey_ser the extended key to verify
+     * @return the raw bytes of the extended key
+     * @throws ExtendedKeyFormatException if the extended key does not match
+     * the expected format for an account-level extended key
      */
     public static byte[] validateExtendedKey(String xkey_ser) throws ExtendedKeyFormatException {
         try {
@@ -121,11 +117,12 @@ public final class Keys {
             if (xkey_bytes.length != 78) {
                 throw new Exception();
             }
-            // If version bytes are not equal to xpub, ypub, or zpub, throw exception
+            // If version bytes are not equal to xpub, ypub, zpub or their private versions, throw exception
             byte[] version = Arrays.copyOfRange(xkey_bytes, 0, 4);
             if (!Arrays.equals(version, XPUB)
                     && !Arrays.equals(version, YPUB)
-                    && !Arrays.equals(version, ZPUB)) {
+                    && !Arrays.equals(version, ZPUB)
+                    && !isPrivate(xkey_bytes)) {
                 throw new Exception();
             }
             // If depth byte is not 0x03, throw exception
@@ -133,10 +130,47 @@ public final class Keys {
             if (depth != (byte) 0x03) {
                 throw new Exception();
             }
+            if (isPrivate(xkey_bytes)) {
+                // If the private key is not 0x00 || k with 0 < k < n, throw exception
+                int[] k = Scalar.create();
+                if (xkey_bytes[45] != 0x00 || !Scalar.fromBytes(k, xkey_bytes, 46) || Scalar.isZero(k)) {
+                    throw new Exception();
+                }
+            } else if (!ProjectivePoint.decompress(xkey_bytes, 45, Field.create(), Field.create())) {
+                // If the public key is not a point on the curve, throw exception
+                throw new Exception();
+            }
             return xkey_bytes;
         } catch (Exception ex) {
-            throw new ExtendedKeyFormatException("extended key is not a valid account-level extended public key.");
+            throw new ExtendedKeyFormatException("extended key is not a valid account-level extended key.");
+        }
+    }
+
+    /**
+     * @param xkey_bytes the raw bytes of an extended key.
+     * @return true if the version bytes are those of an xprv, yprv or zprv.
+     */
+    public static boolean isPrivate(byte[] xkey_bytes) {
+        byte[] version = Arrays.copyOfRange(xkey_bytes, 0, 4);
+        return Arrays.equals(version, XPRV)
+                || Arrays.equals(version, YPRV)
+                || Arrays.equals(version, ZPRV);
+    }
+
+    /**
+     * Prepares the key held by validated extended key bytes for derivation.
+     *
+     * @param xkey_bytes the raw bytes of an extended key, as returned by
+     * {@link #validateExtendedKey(String)}.
+     * @return a {@link PrivateChainNode} for a private key, otherwise a
+     * {@link ChainNode}.
+     */
+    public static KeyNode toKeyNode(byte[] xkey_bytes) {
+        byte[] chainCode = Arrays.copyOfRange(xkey_bytes, 13, 45);
+        if (isPrivate(xkey_bytes)) {
+            return new PrivateChainNode(Bytes.concat(Arrays.copyOfRange(xkey_bytes, 46, 78), chainCode));
         }
+        return new ChainNode(Bytes.concat(Arrays.copyOfRange(xkey_bytes, 45, 78), chainCode));
     }
 
 }
@@ -0,0 +1,173 @@
+package com.eawf.deriver.util;
+
+import java.util.Arrays;
+
+/**
+ * SHA-512 compression function with the chaining state exposed, so that
+ * callers can hash a fixed prefix once and resume from the saved midstate
+ * (see {@link HmacSha512}). Specification in
+ * <a href="https://csrc.nist.gov/publications/detail/fips/180/4/final">FIPS
+ * 180-4</a>.
+ *
+ * @author Carson Mullins
+ */
+public final class Sha512 {
+
+    private Sha512() {
+    } // Non-instantiable
+
+    /**
+     * The size in bytes of a message block.
+     */
+    public static final int BLOCK_LEN = 128;
+
+    /**
+     * The size in bytes of a digest.
+     */
+    public static final int DIGEST_LEN = 64;
+
+    private static final long[] IV = {
+        0x6A09E667F3BCC908L, 0xBB67AE8584CAA73BL, 0x3C6EF372FE94F82BL, 0xA54FF53A5F1D36F1L,
+        0x510E527FADE682D1L, 0x9B05688C2B3E6C1FL, 0x1F83D9ABFB41BD6BL, 0x5BE0CD19137E2179L};
+
+    /**
+     * @return a new chaining state set to the SHA-512 initial value.
+     */
+    public static long[] initialState() {
+        return IV.clone();
+    }
+
+    /**
+     * Hashes a complete message.
+     *
+     * @param msg the message to hash.
+     * @return the 64-byte SHA-512 digest.
+     */
+    public static byte[] hash(byte[] msg) {
+        long[] state = initialState();
+        byte[] out = new byte[DIGEST_LEN];
+        finish(state, 0, msg, 0, msg.length, out, 0);
+        return out;
+    }
+
+    /**
+     * Completes a hash: compresses the message, which follows
+     * {@code prefixLen} bytes already absorbed into {@code state}, adds the
+     * padding and length, and writes the digest.
+     *
+     * @param state the chaining state after the prefix; overwritten.
+     * @param prefixLen the number of bytes already compressed into
+     * {@code state}, a multiple of {@link #BLOCK_LEN}.
+     * @param msg the array holding the rest of the message.
+     * @param off the offset of the rest of the message within {@code msg}.
+     * @param len the length of the rest of the message.
+     * @param out the destination of the digest.
+     * @param outOff the offset within {@code out} to write the 64 bytes to.
+     */
+    public static void finish(long[] state, long prefixLen, byte[] msg, int off, int len,
+            byte[] out, int outOff) {
+        long[] w = new long[80];
+        int end = off + len;
+        while (end - off >= BLOCK_LEN) {
+            compress(state, w, msg, off);
+            off += BLOCK_LEN;
+        }
+        byte[] block = new byte[BLOCK_LEN];
+        int rem = end - off;
+        System.arraycopy(msg, off, block, 0, rem);
+        block[rem] = (byte) 0x80;
+        if (rem + 1 + 16 > BLOCK_LEN) {
+            compress(state, w, block, 0);
+            Arrays.fill(block, (byte) 0);
+        }
+        // Message length in bits as a 128-bit big-endian integer
+        long bits = (prefixLen + len) << 3;
+        block[BLOCK_LEN - 9] = (byte) ((prefixLen + len) >>> 61);
+        for (int i = 0; i < 8; i++) {
+            block[BLOCK_LEN - 1 - i] = (byte) (bits >>> (8 * i));
+        }
+        compress(state, w, block, 0);
+        for (int i = 0; i < 8; i++) {
+            for (int j = 0; j < 8; j++) {
+                out[outOff + 8 * i + j] = (byte) (state[i] >>> (56 - 8 * j));
+            }
+        }
+    }
+
+    /**
+     * Compresses one 128-byte block into the chaining state.
+     *
+     * @param state the 8-word chaining state, updated in place.
+     * @param w an 80-word scratch array for the message schedule.
+     * @param block the array holding the block.
+     * @param off the offset of the block within {@code block}.
+     */
+    public static void compress(long[] state, long[] w, byte[] block, int off) {
+        for (int i = 0; i < 16; i++) {
+            long v = 0;
+            for (int j = 0; j < 8; j++) {
+                v = (v << 8) | (block[off + 8 * i + j] & 0xFF);
+            }
+            w[i] = v;
+        }
+        for (int i = 16; i < 80; i++) {
+            long s0 = Long.rotateRight(w[i - 15], 1) ^ Long.rotateRight(w[i - 15], 8) ^ (w[i - 15] >>> 7);
+            long s1 = Long.rotateRight(w[i - 2], 19) ^ Long.rotateRight(w[i - 2], 61) ^ (w[i - 2] >>> 6);
+            w[i] = w[i - 16] + s0 + w[i - 7] + s1;
+        }
+        long a = state[0];
+        long b = state[1];
+        long c = state[2];
+        long d = state[3];
+        long e = state[4];
+        long f = state[5];
+        long g = state[6];
+        long h = state[7];
+        for (int i = 0; i < 80; i++) {
+            long s1 = Long.rotateRight(e, 14) ^ Long.rotateRight(e, 18) ^ Long.rotateRight(e, 41);
+            long ch = (e & f) ^ (~e & g);
+            long t1 = h + s1 + ch + K[i] + w[i];
+            long s0 = Long.rotateRight(a, 28) ^ Long.rotateRight(a, 34) ^ Long.rotateRight(a, 39);
+            long maj = (a & b) ^ (a & c) ^ (b & c);
+            long t2 = s0 + maj;
+            h = g;
+            g = f;
+            f = e;
+            e = d + t1;
+            d = c;
+            c = b;
+            b = a;
+            a = t1 + t2;
+        }
+        state[0] += a;
+        state[1] += b;
+        state[2] += c;
+        state[3] += d;
+        state[4] += e;
+        state[5] += f;
+        state[6] += g;
+        state[7] += h;
+    }
+
+    private static final long[] K = {
+        0x428A2F98D728AE22L, 0x7137449123EF65CDL, 0xB5C0FBCFEC4D3B2FL, 0xE9B5DBA58189DBBCL,
+        0x3956C25BF348B538L, 0x59F111F1B605D019L, 0x923F82A4AF194F9BL, 0xAB1C5ED5DA6D8118L,
+        0xD807AA98A3030242L, 0x12835B0145706FBEL, 0x243185BE4EE4B28CL, 0x550C7DC3D5FFB4E2L,
+        0x72BE5D74F27B896FL, 0x80DEB1FE3B1696B1L, 0x9BDC06A725C71235L, 0xC19BF174CF692694L,
+        0xE49B69C19EF14AD2L, 0xEFBE4786384F25E3L, 0x0FC19DC68B8CD5B5L, 0x240CA1CC77AC9C65L,
+        0x2DE92C6F592B0275L, 0x4A7484AA6EA6E483L, 0x5CB0A9DCBD41FBD4L, 0x76F988DA831153B5L,
+        0x983E5152EE66DFABL, 0xA831C66D2DB43210L, 0xB00327C898FB213FL, 0xBF597FC7BEEF0EE4L,
+        0xC6E00BF33DA88FC2L, 0xD5A79147930AA725L, 0x06CA6351E003826FL, 0x142929670A0E6E70L,
+        0x27B70A8546D22FFCL, 0x2E1B21385C26C926L, 0x4D2C6DFC5AC42AEDL, 0x53380D139D95B3DFL,
+        0x650A73548BAF63DEL, 0x766A0ABB3C77B2A8L, 0x81C2C92E47EDAEE6L, 0x92722C851482353BL,
+        0xA2BFE8A14CF10364L, 0xA81A664BBC423001L, 0xC24B8B70D0F89791L, 0xC76C51A30654BE30L,
+        0xD192E819D6EF5218L, 0xD69906245565A910L, 0xF40E35855771202AL, 0x106AA07032BBD1B8L,
+        0x19A4C116B8D2D0C8L, 0x1E376C085141AB53L, 0x2748774CDF8EEB99L, 0x34B0BCB5E19B48A8L,
+        0x391C0CB3C5C95A63L, 0x4ED8AA4AE3418ACBL, 0x5B9CCA4F7763E373L, 0x682E6FF3D6B2B8A3L,
+        0x748F82EE5DEFB2FCL, 0x78A5636F43172F60L, 0x84C87814A1F0AB72L, 0x8CC702081A6439ECL,
+        0x90BEFFFA23631E28L, 0xA4506CEBDE82BDE9L, 0xBEF9A3F7B2C67915L, 0xC67178F2E372532BL,
+        0xCA273ECEEA26619CL, 0xD186B8C721C0C207L, 0xEADA7DD6CDE0EB1EL, 0xF57D4F7FEE6ED178L,
+        0x06F067AA72176FBAL, 0x0A637DC5A2C898A6L, 0x113F9804BEF90DAEL, 0x1B710B35131C471BL,
+        0x28DB77F523047D84L, 0x32CAAB7B40C72493L, 0x3C9EBE0A15C9BEBCL, 0x431D67C49C100D4CL,
+        0x4CC5D4BECB3E42B6L, 0x597F299CFC657E2AL, 0x5FCB6FAB3AD6FAECL, 0x6C44198C4A475817L};
+}
@@ -0,0 +1,54 @@
+package com.eawf.deriver.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * The BIP340 tagged hash SHA256(SHA256(tag) || SHA256(tag) || msg). The
+ * 64-byte prefix is exactly one SHA-256 block, so it is compressed once into
+ * a digest that every call clones, leaving only the message blocks to hash.
+ * Instances never change after construction and may be shared between
+ * threads.
+ *
+ * @author Carson Mullins
+ */
+public final class TaggedHash {
+
+    /**
+     * The length of a tagged hash.
+     */
+    public static final int LEN = 32;
+
+    private final MessageDigest prefix;
+
+    /**
+     * @param tag the tag, such as {@code TapTweak}.
+     */
+    public TaggedHash(String tag) {
+        byte[] tagHash = Hashes.sha256(tag.getBytes(StandardCharsets.UTF_8));
+        try {
+            prefix = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new RuntimeException(ex);
+        }
+        prefix.update(tagHash);
+        prefix.update(tagHash);
+    }
+
+    /**
+     * @param msg the array holding the message.
+     * @param off the offset of the message within msg.
+     * @param len the length of the message.
+     * @return the 32-byte tagged hash of the message.
+     */
+    public byte[] hash(byte[] msg, int off, int len) {
+        try {
+            MessageDigest md = (MessageDigest) prefix.clone();
+            md.update(msg, off, len);
+            return md.digest();
+        } catch (CloneNotSupportedException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+}
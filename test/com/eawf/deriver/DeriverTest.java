@@ -0,0 +1,37 @@
+package com.eawf.deriver;
+
+import com.eawf.deriver.bitcoin.AddressType;
+import com.eawf.deriver.util.ExtendedKeyFormatException;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ * Checks {@link Deriver} against the account-level test vectors of BIP-84
+ * and BIP-86.
+ *
+ * @author Carson Mullins
+ */
+public class DeriverTest {
+
+    private static final String BIP84_ZPUB = "zpub6rFR7y4Q2AijBEqTUquhVz398htDFrtymD9xYYfG1m4wAcvPhXNfE3EfH1r1ADqtfSdVCToUG868RvUUkgDKf31mGDtKsAYz2oz2AGutZYs";
+    private static final String BIP86_XPUB = "xpub6BgBgsespWvERF3LHQu6CnqdvfEvtMcQjYrcRzx53QJjSxarj2afYWcLteoGVky7D3UKDP9QyrLprQ3VCECoY49yfdDEHGCtMMj92pReUsQ";
+
+    @Test
+    public void bip84() throws ExtendedKeyFormatException {
+        Deriver receive = new Deriver(BIP84_ZPUB, 0);
+        Deriver change = new Deriver(BIP84_ZPUB, 1);
+        assertEquals(AddressType.P2WPKH, receive.getType());
+        assertEquals("bc1qcr8te4kr609gcawutmrza0j4xv80jy8z306fyu", receive.derive(0).getAddress());
+        assertEquals("bc1qnjg0jd8228aq7egyzacy8cys3knf9xvrerkf9g", receive.derive(1).getAddress());
+        assertEquals("bc1q8c6fshw2dlwun7ekn9qwf37cu2rn755upcp6el", change.derive(0).getAddress());
+    }
+
+    @Test
+    public void bip86() throws ExtendedKeyFormatException {
+        Deriver receive = new Deriver(BIP86_XPUB, 0, AddressType.P2TR);
+        Deriver change = new Deriver(BIP86_XPUB, 1, AddressType.P2TR);
+        assertEquals("bc1p5cyxnuxmeuwuvkwfem96lqzszd02n6xdcjrs20cac6yqjjwudpxqkedrcr", receive.derive(0).getAddress());
+        assertEquals("bc1p4qhjn9zdvkux4e44uhx8tc55attvtyu358kutcqkudyccelu0was9fqzwh", receive.derive(1).getAddress());
+        assertEquals("bc1p3qkhfews2uk44qtvauqyr2ttdsw7svhkl9nkm9s9c3x4ax5h60wqwruhk7", change.derive(0).getAddress());
+    }
+}
@@ -0,0 +1,87 @@
+package com.eawf.deriver.bitcoin;
+
+import com.eawf.deriver.util.Strings;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+/**
+ * Checks {@link Bech32} against the segwit address test vectors of BIP-350,
+ * lowercased where the vector is not, as the decoder takes lowercase only.
+ *
+ * @author Carson Mullins
+ */
+public class Bech32Test {
+
+    // Address, witness version, witness program
+    private static final Object[][] VALID = {
+        {"bc1qw508d6qejxtdg4y5r3zarvary0c5xw7kv8f3t4", 0,
+            "751e76e8199196d454941c45d1b3a323f1433bd6"},
+        {"tb1qrp33g0q5c5txsp9arysrx4k6zdkfs4nce4xj0gdcccefvpysxf3q0sl5k7", 0,
+            "1863143c14c5166804bd19203356da136c985678cd4d27a1b8c6329604903262"},
+        {"bc1pw508d6qejxtdg4y5r3zarvary0c5xw7kw508d6qejxtdg4y5r3zarvary0c5xw7kt5nd6y", 1,
+            "751e76e8199196d454941c45d1b3a323f1433bd6751e76e8199196d454941c45d1b3a323f1433bd6"},
+        {"bc1sw50qgdz25j", 16, "751e"},
+        {"bc1zw508d6qejxtdg4y5r3zarvaryvaxxpcs", 2, "751e76e8199196d454941c45d1b3a323"},
+        {"tb1qqqqqp399et2xygdj5xreqhjjvcmzhxw4aywxecjdzew6hylgvsesrxh6hy", 0,
+            "000000c4a5cad46221b2a187905e5266362b99d5e91c6ce24d165dab93e86433"},
+        {"tb1pqqqqp399et2xygdj5xreqhjjvcmzhxw4aywxecjdzew6hylgvsesf3hn0c", 1,
+            "000000c4a5cad46221b2a187905e5266362b99d5e91c6ce24d165dab93e86433"},
+        {"bc1p0xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7vqzk5jj0", 1,
+            "79be667ef9dcbbac55a06295ce870b07029bfcdb2dce28d959f2815b16f81798"}};
+
+    private static final String[] INVALID = {
+        // Bech32 checksum with a version 1 program
+        "bc1p0xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7vqh2y7hd",
+        "tb1z0xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7vqglt7rf",
+        // Bech32 checksum with a version 16 program
+        "bc1s0xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7vq54well",
+        // Bech32m checksum with a version 0 program
+        "bc1qw508d6qejxtdg4y5r3zarvary0c5xw7kemeawh",
+        "tb1q0xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7vq24jc47",
+        // Invalid character in the data part
+        "bc1p38j9r5y49hruaue7wxjce0updqjuyyx0kh56v8s25huc6995vvpql3jow4",
+        // Invalid witness version
+        "bc130xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7vq7zws8r",
+        // Invalid program lengths, 1 byte and 41 bytes
+        "bc1pw5dgrnzv",
+        "bc1p0xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7v8n0nx0muaewav253zgeav",
+        // Zero padding of more than 4 bits
+        "bc1p0xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7v07qwwzcrf",
+        // Non-zero padding in the 8-to-5 conversion
+        "tb1p0xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7vpggkg4j",
+        // Empty data part
+        "bc1gmk9yu"};
+
+    @Test
+    public void decodeValid() {
+        for (Object[] vector : VALID) {
+            String address = (String) vector[0];
+            Object[] decoded = Bech32.bech32ToSegwit(address);
+            assertEquals(address, address.substring(0, 2), decoded[0]);
+            assertEquals(address, vector[1], decoded[1]);
+            assertArrayEquals(address, Strings.toBytes((String) vector[2]), (byte[]) decoded[2]);
+        }
+    }
+
+    @Test
+    public void encodeValid() {
+        for (Object[] vector : VALID) {
+            String address = (String) vector[0];
+            assertEquals(address, Bech32.segwitToBech32(address.substring(0, 2), (Integer) vector[1],
+                    Strings.toBytes((String) vector[2])));
+        }
+    }
+
+    @Test
+    public void rejectInvalid() {
+        for (String address : INVALID) {
+            try {
+                Bech32.bech32ToSegwit(address);
+                fail(address);
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+}
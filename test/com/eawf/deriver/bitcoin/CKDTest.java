@@ -0,0 +1,111 @@
+package com.eawf.deriver.bitcoin;
+
+import com.eawf.deriver.util.Bytes;
+import com.eawf.deriver.util.Hashes;
+import com.eawf.deriver.util.Strings;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import static org.junit.Assert.assertArrayEquals;
+import org.junit.Test;
+
+/**
+ * Checks {@link CKD}, {@link ChainNode} and {@link PrivateChainNode} against
+ * test vectors 1 and 2 of BIP-32.
+ *
+ * @author Carson Mullins
+ */
+public class CKDTest {
+
+    private static final int H = 0x80000000;
+
+    private static final String SEED_1 = "000102030405060708090a0b0c0d0e0f";
+    private static final int[] PATH_1 = {0 | H, 1, 2 | H, 2, 1000000000};
+    private static final String[][] VECTOR_1 = {
+        {"xprv9s21ZrQH143K3QTDL4LXw2F7HEK3wJUD2nW2nRk4stbPy6cq3jPPqjiChkVvvNKmPGJxWUtg6LnF5kejMRNNU3TGtRBeJgk33yuGBxrMPHi",
+            "xpub661MyMwAqRbcFtXgS5sYJABqqG9YLmC4Q1Rdap9gSE8NqtwybGhePY2gZ29ESFjqJoCu1Rupje8YtGqsefD265TMg7usUDFdp6W1EGMcet8"},
+        {"xprv9uHRZZhk6KAJC1avXpDAp4MDc3sQKNxDiPvvkX8Br5ngLNv1TxvUxt4cV1rGL5hj6KCesnDYUhd7oWgT11eZG7XnxHrnYeSvkzY7d2bhkJ7",
+            "xpub68Gmy5EdvgibQVfPdqkBBCHxA5htiqg55crXYuXoQRKfDBFA1WEjWgP6LHhwBZeNK1VTsfTFUHCdrfp1bgwQ9xv5ski8PX9rL2dZXvgGDnw"},
+        {"xprv9wTYmMFdV23N2TdNG573QoEsfRrWKQgWeibmLntzniatZvR9BmLnvSxqu53Kw1UmYPxLgboyZQaXwTCg8MSY3H2EU4pWcQDnRnrVA1xe8fs",
+            "xpub6ASuArnXKPbfEwhqN6e3mwBcDTgzisQN1wXN9BJcM47sSikHjJf3UFHKkNAWbWMiGj7Wf5uMash7SyYq527Hqck2AxYysAA7xmALppuCkwQ"},
+        {"xprv9z4pot5VBttmtdRTWfWQmoH1taj2axGVzFqSb8C9xaxKymcFzXBDptWmT7FwuEzG3ryjH4ktypQSAewRiNMjANTtpgP4mLTj34bhnZX7UiM",
+            "xpub6D4BDPcP2GT577Vvch3R8wDkScZWzQzMMUm3PWbmWvVJrZwQY4VUNgqFJPMM3No2dFDFGTsxxpG5uJh7n7epu4trkrX7x7DogT5Uv6fcLW5"},
+        {"xprvA2JDeKCSNNZky6uBCviVfJSKyQ1mDYahRjijr5idH2WwLsEd4Hsb2Tyh8RfQMuPh7f7RtyzTtdrbdqqsunu5Mm3wDvUAKRHSC34sJ7in334",
+            "xpub6FHa3pjLCk84BayeJxFW2SP4XRrFd1JYnxeLeU8EqN3vDfZmbqBqaGJAyiLjTAwm6ZLRQUMv1ZACTj37sR62cfN7fe5JnJ7dh8zL4fiyLHV"},
+        {"xprvA41z7zogVVwxVSgdKUHDy1SKmdb533PjDz7J6N6mV6uS3ze1ai8FHa8kmHScGpWmj4WggLyQjgPie1rFSruoUihUZREPSL39UNdE3BBDu76",
+            "xpub6H1LXWLaKsWFhvm6RVpEL9P4KfRZSW7abD2ttkWP3SSQvnyA8FSVqNTEcYFgJS2UaFcxupHiYkro49S8yGasTvXEYBVPamhGW6cFJodrTHy"}};
+
+    private static final String SEED_2 = "fffcf9f6f3f0edeae7e4e1dedbd8d5d2cfccc9c6c3c0bdbab7b4b1aeaba8a5a29f9c999693908d8a8784817e7b7875726f6c696663605d5a5754514e4b484542";
+    private static final int[] PATH_2 = {0, 2147483647 | H, 1, 2147483646 | H, 2};
+    private static final String[][] VECTOR_2 = {
+        {"xprv9s21ZrQH143K31xYSDQpPDxsXRTUcvj2iNHm5NUtrGiGG5e2DtALGdso3pGz6ssrdK4PFmM8NSpSBHNqPqm55Qn3LqFtT2emdEXVYsCzC2U",
+            "xpub661MyMwAqRbcFW31YEwpkMuc5THy2PSt5bDMsktWQcFF8syAmRUapSCGu8ED9W6oDMSgv6Zz8idoc4a6mr8BDzTJY47LJhkJ8UB7WEGuduB"},
+        {"xprv9vHkqa6EV4sPZHYqZznhT2NPtPCjKuDKGY38FBWLvgaDx45zo9WQRUT3dKYnjwih2yJD9mkrocEZXo1ex8G81dwSM1fwqWpWkeS3v86pgKt",
+            "xpub69H7F5d8KSRgmmdJg2KhpAK8SR3DjMwAdkxj3ZuxV27CprR9LgpeyGmXUbC6wb7ERfvrnKZjXoUmmDznezpbZb7ap6r1D3tgFxHmwMkQTPH"},
+        {"xprv9wSp6B7kry3Vj9m1zSnLvN3xH8RdsPP1Mh7fAaR7aRLcQMKTR2vidYEeEg2mUCTAwCd6vnxVrcjfy2kRgVsFawNzmjuHc2YmYRmagcEPdU9",
+            "xpub6ASAVgeehLbnwdqV6UKMHVzgqAG8Gr6riv3Fxxpj8ksbH9ebxaEyBLZ85ySDhKiLDBrQSARLq1uNRts8RuJiHjaDMBU4Zn9h8LZNnBC5y4a"},
+        {"xprv9zFnWC6h2cLgpmSA46vutJzBcfJ8yaJGg8cX1e5StJh45BBciYTRXSd25UEPVuesF9yog62tGAQtHjXajPPdbRCHuWS6T8XA2ECKADdw4Ef",
+            "xpub6DF8uhdarytz3FWdA8TvFSvvAh8dP3283MY7p2V4SeE2wyWmG5mg5EwVvmdMVCQcoNJxGoWaU9DCWh89LojfZ537wTfunKau47EL2dhHKon"},
+        {"xprvA1RpRA33e1JQ7ifknakTFpgNXPmW2YvmhqLQYMmrj4xJXXWYpDPS3xz7iAxn8L39njGVyuoseXzU6rcxFLJ8HFsTjSyQbLYnMpCqE2VbFWc",
+            "xpub6ERApfZwUNrhLCkDtcHTcxd75RbzS1ed54G1LkBUHQVHQKqhMkhgbmJbZRkrgZw4koxb5JaHWkY4ALHY2grBGRjaDMzQLcgJvLJuZZvRcEL"},
+        {"xprvA2nrNbFZABcdryreWet9Ea4LvTJcGsqrMzxHx98MMrotbir7yrKCEXw7nadnHM8Dq38EGfSh6dqA9QWTyefMLEcBYJUuekgW4BYPJcr9E7j",
+            "xpub6FnCn6nSzZAw5Tw7cgR9bi15UV96gLZhjDstkXXxvCLsUXBGXPdSnLFbdpq8p9HmGsApME5hQTZ3emM2rnY5agb9rXpVGyy3bdW6EEgAtqt"}};
+
+    @Test
+    public void vector1() {
+        checkVector(SEED_1, PATH_1, VECTOR_1);
+    }
+
+    @Test
+    public void vector2() {
+        checkVector(SEED_2, PATH_2, VECTOR_2);
+    }
+
+    private static void checkVector(String seed, int[] path, String[][] vector) {
+        byte[] I = Hashes.hmac("Bitcoin seed".getBytes(StandardCharsets.US_ASCII), Strings.toBytes(seed));
+        assertArrayEquals("m", prv(vector[0][0]), I);
+        for (int j = 0; j < path.length; j++) {
+            byte[] prvPar = prv(vector[j][0]);
+            byte[] pubPar = pub(vector[j][1]);
+            byte[] prvChild = prv(vector[j + 1][0]);
+            byte[] pubChild = pub(vector[j + 1][1]);
+            int i = path[j];
+            String step = "step " + (j + 1);
+
+            assertArrayEquals(step, prvChild, CKD.CKDpriv(prvPar, i));
+            PrivateChainNode prvNode = new PrivateChainNode(prvPar);
+            assertArrayEquals(step, pubPar, prvNode.toPublic().toExtendedKey());
+            assertArrayEquals(step, Arrays.copyOf(prvChild, 32), prvNode.derivePrvKey(i));
+            assertArrayEquals(step, Arrays.copyOf(pubChild, 33), prvNode.derivePubKey(i));
+            PrivateChainNode prvChildNode = prvNode.deriveChild(i);
+            assertArrayEquals(step, prvChild, prvChildNode.toExtendedKey());
+            assertArrayEquals(step, pubChild, prvChildNode.toPublic().toExtendedKey());
+
+            if (i >= 0) {
+                assertArrayEquals(step, pubChild, CKD.CKDpub(pubPar, i));
+                ChainNode pubNode = new ChainNode(pubPar);
+                assertArrayEquals(step, Arrays.copyOf(pubChild, 33), pubNode.derivePubKey(i));
+                byte[] batch = new byte[2 * 33];
+                pubNode.derivePubKeys(i, 2, batch, 0);
+                assertArrayEquals(step, Arrays.copyOf(pubChild, 33), Arrays.copyOf(batch, 33));
+                assertArrayEquals(step, pubNode.derivePubKey(i + 1), Arrays.copyOfRange(batch, 33, 66));
+                assertArrayEquals(step, pubChild, pubNode.deriveChild(i).toExtendedKey());
+            }
+        }
+    }
+
+    /**
+     * @return the 64-byte private key and chain code of a serialized xprv.
+     */
+    private static byte[] prv(String xprv) {
+        byte[] b = Base58Check.base58ToBytes(xprv);
+        return Bytes.concat(Arrays.copyOfRange(b, 46, 78), Arrays.copyOfRange(b, 13, 45));
+    }
+
+    /**
+     * @return the 65-byte public key and chain code of a serialized xpub.
+     */
+    private static byte[] pub(String xpub) {
+        byte[] b = Base58Check.base58ToBytes(xpub);
+        return Bytes.concat(Arrays.copyOfRange(b, 45, 78), Arrays.copyOfRange(b, 13, 45));
+    }
+}
@@ -0,0 +1,51 @@
+package com.eawf.deriver.ecc;
+
+import java.math.BigInteger;
+import java.security.spec.ECPoint;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ * Compares each path of {@link ConstantTimeMultiply} with
+ * {@link ScalarMultiply}.
+ *
+ * @author Carson Mullins
+ */
+public class ConstantTimeMultiplyTest {
+
+    @Test
+    public void multiplyG() {
+        for (BigInteger k : Scalars.scalars(50)) {
+            ECPoint expected = ScalarMultiply.scalmult(CurveParams.G, k);
+            assertEquals(k.toString(16), expected, ConstantTimeMultiply.multiplyG(Scalars.toBytes(k)).toECPoint());
+        }
+    }
+
+    @Test
+    public void multiplyWindowed() {
+        ProjectivePoint q = new ProjectivePoint(Scalars.Q);
+        for (BigInteger k : Scalars.scalars(50)) {
+            ECPoint expected = ScalarMultiply.scalmult(Scalars.Q, k);
+            assertEquals(k.toString(16), expected, ConstantTimeMultiply.multiply(q, Scalars.toBytes(k)).toECPoint());
+        }
+    }
+
+    @Test
+    public void multiplyCached() {
+        // The first product of a point is windowed, the later ones use its
+        // cached comb table
+        for (BigInteger k : Scalars.scalars(50)) {
+            ECPoint expected = ScalarMultiply.scalmult(Scalars.Q, k);
+            assertEquals(k.toString(16), expected, ConstantTimeMultiply.multiply(Scalars.Q, Scalars.toBytes(k)).toECPoint());
+        }
+    }
+
+    @Test
+    public void toScalar() {
+        BigInteger k = Scalars.N.add(BigInteger.valueOf(5));
+        byte[] wide = new byte[33];
+        System.arraycopy(Scalars.toBytes(k), 0, wide, 1, 32);
+        assertEquals(BigInteger.valueOf(5), new BigInteger(1, ConstantTimeMultiply.toScalar(wide)));
+        assertEquals(BigInteger.valueOf(7), new BigInteger(1, ConstantTimeMultiply.toScalar(new byte[]{7})));
+    }
+}
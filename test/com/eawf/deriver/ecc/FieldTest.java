@@ -0,0 +1,121 @@
+package com.eawf.deriver.ecc;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Compares {@link Field} with BigInteger arithmetic modulo p on random
+ * elements and on the values next to 0, 2^32 limb boundaries and p.
+ *
+ * @author Carson Mullins
+ */
+public class FieldTest {
+
+    private static final BigInteger P = CurveParams.p;
+    private static final int RANDOM_VALUES = 200;
+
+    private static List<BigInteger> values() {
+        List<BigInteger> values = new ArrayList<>();
+        values.add(BigInteger.ZERO);
+        values.add(BigInteger.ONE);
+        values.add(BigInteger.valueOf(2));
+        values.add(BigInteger.ONE.shiftLeft(32).subtract(BigInteger.ONE));
+        values.add(BigInteger.ONE.shiftLeft(32));
+        values.add(BigInteger.ONE.shiftLeft(255));
+        values.add(P.subtract(BigInteger.valueOf(2)));
+        values.add(P.subtract(BigInteger.ONE));
+        Random random = new Random(1);
+        for (int i = 0; i < RANDOM_VALUES; i++) {
+            values.add(new BigInteger(256, random).mod(P));
+        }
+        return values;
+    }
+
+    private static int[] element(BigInteger v) {
+        int[] r = Field.create();
+        Field.fromBigInteger(r, v);
+        return r;
+    }
+
+    @Test
+    public void roundTrip() {
+        for (BigInteger a : values()) {
+            assertEquals(a, Field.toBigInteger(element(a)));
+        }
+        assertEquals(BigInteger.ZERO, Field.toBigInteger(element(P)));
+        assertEquals(BigInteger.ONE, Field.toBigInteger(element(P.add(BigInteger.ONE))));
+    }
+
+    @Test
+    public void arithmetic() {
+        List<BigInteger> values = values();
+        int[] r = Field.create();
+        for (int i = 0; i < values.size(); i++) {
+            BigInteger a = values.get(i);
+            BigInteger b = values.get((i * 7 + 3) % values.size());
+            int[] fa = element(a);
+            int[] fb = element(b);
+            String msg = a.toString(16) + ", " + b.toString(16);
+
+            Field.add(r, fa, fb);
+            assertEquals(msg, a.add(b).mod(P), Field.toBigInteger(r));
+            Field.sub(r, fa, fb);
+            assertEquals(msg, a.subtract(b).mod(P), Field.toBigInteger(r));
+            Field.mul(r, fa, fb);
+            assertEquals(msg, a.multiply(b).mod(P), Field.toBigInteger(r));
+            Field.sqr(r, fa);
+            assertEquals(msg, a.multiply(a).mod(P), Field.toBigInteger(r));
+            Field.negate(r, fa);
+            assertEquals(msg, a.negate().mod(P), Field.toBigInteger(r));
+            assertEquals(msg, a.signum() == 0, Field.isZero(fa));
+            assertEquals(msg, a.equals(b), Field.equals(fa, fb));
+        }
+    }
+
+    @Test
+    public void inverse() {
+        int[] r = Field.create();
+        for (BigInteger a : values()) {
+            if (a.signum() == 0) {
+                continue;
+            }
+            Field.inv(r, element(a));
+            assertEquals(a.toString(16), a.modInverse(P), Field.toBigInteger(r));
+        }
+    }
+
+    @Test
+    public void squareRoot() {
+        int[] r = Field.create();
+        int[] square = Field.create();
+        for (BigInteger a : values()) {
+            BigInteger root = a.modPow(P.add(BigInteger.ONE).shiftRight(2), P);
+            boolean isSquare = root.multiply(root).mod(P).equals(a);
+            int[] fa = element(a);
+            assertEquals(a.toString(16), isSquare, Field.sqrt(r, fa));
+            if (isSquare) {
+                Field.sqr(square, r);
+                assertTrue(a.toString(16), Field.equals(square, fa));
+            }
+        }
+    }
+
+    @Test
+    public void conditionalMove() {
+        int[] a = element(BigInteger.valueOf(5));
+        int[] b = element(P.subtract(BigInteger.ONE));
+        int[] r = Field.create();
+        Field.set(r, a);
+        Field.cmov(r, b, 0);
+        assertTrue(Field.equals(r, a));
+        Field.cmov(r, b, -1);
+        assertTrue(Field.equals(r, b));
+        assertFalse(Field.equals(r, a));
+    }
+}
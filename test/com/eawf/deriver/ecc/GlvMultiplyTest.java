@@ -0,0 +1,30 @@
+package com.eawf.deriver.ecc;
+
+import java.math.BigInteger;
+import java.security.spec.ECPoint;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ * Compares {@link GlvMultiply} with {@link ScalarMultiply}.
+ *
+ * @author Carson Mullins
+ */
+public class GlvMultiplyTest {
+
+    @Test
+    public void multiplyG() {
+        check(CurveParams.G);
+    }
+
+    @Test
+    public void multiplyOtherPoint() {
+        check(Scalars.Q);
+    }
+
+    private static void check(ECPoint p) {
+        for (BigInteger k : Scalars.scalars(50)) {
+            assertEquals(k.toString(16), ScalarMultiply.scalmult(p, k), GlvMultiply.multiply(p, k));
+        }
+    }
+}
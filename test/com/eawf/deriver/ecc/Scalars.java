@@ -0,0 +1,62 @@
+package com.eawf.deriver.ecc;
+
+import java.math.BigInteger;
+import java.security.spec.ECPoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Scalars and points shared by the multiplication tests: the edge cases
+ * around 0 and n, and random scalars from a fixed seed.
+ *
+ * @author Carson Mullins
+ */
+final class Scalars {
+
+    private Scalars() {
+    } // Non-instantiable
+
+    static final BigInteger N = CurveParams.n;
+
+    /**
+     * A point other than G, whose multiples share none of G's tables.
+     */
+    static final ECPoint Q = ScalarMultiply.scalmult(CurveParams.G,
+            new BigInteger("5f4f1dc1b9a4f7a5b2d6c3e8a1f0e9d8c7b6a5948372615049382716a5b4c3d2", 16));
+
+    /**
+     * @param count the number of random scalars.
+     * @return 0, 1, 2, n - 2, n - 1, n, n + 1, 2^128 - 1, 2^255, followed by
+     * {@code count} random scalars below 2^256.
+     */
+    static List<BigInteger> scalars(int count) {
+        List<BigInteger> k = new ArrayList<>();
+        k.add(BigInteger.ZERO);
+        k.add(BigInteger.ONE);
+        k.add(BigInteger.valueOf(2));
+        k.add(N.subtract(BigInteger.valueOf(2)));
+        k.add(N.subtract(BigInteger.ONE));
+        k.add(N);
+        k.add(N.add(BigInteger.ONE));
+        k.add(BigInteger.ONE.shiftLeft(128).subtract(BigInteger.ONE));
+        k.add(BigInteger.ONE.shiftLeft(255));
+        Random random = new Random(2);
+        for (int i = 0; i < count; i++) {
+            k.add(new BigInteger(256, random));
+        }
+        return k;
+    }
+
+    /**
+     * @param k a scalar below 2^256.
+     * @return k as a 32-byte big-endian integer.
+     */
+    static byte[] toBytes(BigInteger k) {
+        byte[] raw = k.toByteArray();
+        byte[] b = new byte[32];
+        int len = Math.min(raw.length, 32);
+        System.arraycopy(raw, raw.length - len, b, 32 - len, len);
+        return b;
+    }
+}